@@ -0,0 +1,194 @@
+package katty;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import katty.command.CommandRegistry;
+import katty.index.PrefixTrie;
+import katty.task.SortOrder;
+import katty.task.Task;
+
+/**
+ * Suggests how to finish a command while it is being typed.
+ * <p>
+ * Command names are completed from the prefix trie of the {@link CommandRegistry}, with their
+ * format as a hint, and {@code deadline} and {@code event} are offered their next {@code /by},
+ * {@code /from} or {@code /to}. Commands that take a task number complete a task name into its
+ * number, and {@code find} and {@code search} complete task names, from a {@link PrefixTrie}
+ * that follows the current list.
+ * </p>
+ * <p>
+ * Task numbers are worked out once after the list changes and kept until it changes again,
+ * so a lookup costs about as much as walking the prefix. Like the task list itself,
+ * this is not thread-safe, so {@link Katty} only uses it while holding its lock.
+ * </p>
+ */
+public class Autocomplete implements TaskListener {
+    public static final int MAX_SUGGESTIONS = 5;
+    private static final String FORMAT_PREFIX = "Format: ";
+    private static final Map<String, KattyError> FORMATS = Map.of(
+            "todo", KattyError.INVALID_TODO,
+            "deadline", KattyError.INVALID_DEADLINE,
+            "event", KattyError.INVALID_EVENT,
+            "sort", KattyError.INVALID_SORT_ORDER,
+            "restore", KattyError.NO_SUCH_BACKUP);
+    private static final Set<String> NUMBERED = Set.of("mark", "unmark", "delete", "move");
+    private static final Set<String> NAMED = Set.of("find", "search");
+
+    private final CommandRegistry commands;
+    private final PrefixTrie names = new PrefixTrie();
+    private Map<Task, Integer> numbers;
+    private TaskManager numbered;
+    private SortOrder numberedOrder;
+
+    /**
+     * Represents a way to finish the input.
+     *
+     * @param text the whole input with the suggestion applied
+     * @param hint what to show for it
+     */
+    public record Suggestion(String text, String hint) {
+    }
+
+    /**
+     * Creates suggestions for the commands in a registry.
+     *
+     * @param commands the registered commands
+     */
+    public Autocomplete(CommandRegistry commands) {
+        this.commands = commands;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        names.taskAdded(task);
+        numbers = null;
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        names.taskRemoved(task);
+        numbers = null;
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        // Marking can move a task when the list is sorted by status or it recurs
+        numbers = null;
+    }
+
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        names.tasksReloaded(tasks);
+        numbers = null;
+    }
+
+    /**
+     * Suggests ways to finish the input, best first.
+     *
+     * @param input the input typed so far
+     * @param tasks the current task list, to number tasks by
+     * @return at most {@value #MAX_SUGGESTIONS} suggestions, which is empty if there is nothing to offer
+     */
+    public List<Suggestion> suggest(String input, TaskManager tasks) {
+        String typed = input.stripLeading();
+        int space = typed.indexOf(' ');
+        if (space < 0) {
+            return completeCommand(typed.toLowerCase(Locale.ROOT));
+        }
+        List<String> candidates = commands.resolve(typed.substring(0, space).toLowerCase(Locale.ROOT));
+        if (candidates.size() != 1) {
+            return List.of();
+        }
+        String name = candidates.get(0);
+        String rest = typed.substring(space + 1);
+        if (NUMBERED.contains(name)) {
+            return completeNumber(name, rest, tasks);
+        } else if (NAMED.contains(name)) {
+            return completeName(name, rest);
+        }
+        return switch (name) {
+        case "deadline" -> completeFlag(name, typed, rest, "/by");
+        case "event" -> completeFlag(name, typed, rest, "/from", "/to");
+        default -> List.of();
+        };
+    }
+
+    private List<Suggestion> completeCommand(String typed) {
+        if (typed.isEmpty()) {
+            return List.of();
+        }
+        return commands.resolve(typed).stream()
+                .limit(MAX_SUGGESTIONS)
+                .map(name -> new Suggestion(name + " ", usageOf(name)))
+                .toList();
+    }
+
+    /**
+     * Completes a task name into its number, e.g. {@code mark rea} into {@code mark 3}.
+     */
+    private List<Suggestion> completeNumber(String name, String rest, TaskManager tasks) {
+        if (rest.isBlank() || Character.isDigit(rest.strip().charAt(0))) {
+            return List.of();
+        }
+        List<Task> matches = names.complete(rest, MAX_SUGGESTIONS);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        if (numbers == null || numbered != tasks || numberedOrder != tasks.getSortOrder()) {
+            numbers = tasks.numberTasks();
+            numbered = tasks;
+            numberedOrder = tasks.getSortOrder();
+        }
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (Task task : matches) {
+            Integer number = numbers.get(task);
+            if (number != null) {
+                suggestions.add(new Suggestion(name + " " + number + (name.equals("move") ? " " : ""),
+                        number + ". " + task));
+            }
+        }
+        return suggestions;
+    }
+
+    private List<Suggestion> completeName(String name, String rest) {
+        Set<String> texts = new HashSet<>();
+        return names.complete(rest, MAX_SUGGESTIONS).stream()
+                .map(task -> new Suggestion(name + " " + task.getTaskName(), task.toString()))
+                .filter(suggestion -> texts.add(suggestion.text()))
+                .toList();
+    }
+
+    /**
+     * Offers the first flag not typed yet, once something has been typed after the one before it.
+     */
+    private static List<Suggestion> completeFlag(String name, String typed, String rest, String... flags) {
+        int from = 0;
+        for (String flag : flags) {
+            int at = rest.indexOf(flag, from);
+            if (at < 0) {
+                return rest.substring(from).isBlank() ? List.of()
+                        : List.of(new Suggestion(typed.stripTrailing() + " " + flag + " ", usageOf(name)));
+            }
+            from = at + flag.length();
+        }
+        return List.of();
+    }
+
+    private static String usageOf(String name) {
+        KattyError format = FORMATS.get(name);
+        if (format != null) {
+            String message = format.getMessage();
+            return message.startsWith(FORMAT_PREFIX) ? message.substring(FORMAT_PREFIX.length()) : message;
+        } else if (NUMBERED.contains(name)) {
+            return name + (name.equals("move") ? " [index] [list]" : " [index]");
+        } else if (NAMED.contains(name)) {
+            return name + " [keyword]";
+        }
+        return name;
+    }
+}
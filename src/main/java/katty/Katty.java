@@ -1,6 +1,25 @@
 package katty;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import katty.command.CommandArgs;
+import katty.command.CommandRegistry;
+import katty.command.CommandStats;
+import katty.index.DateBucketIndex;
+import katty.index.TrigramIndex;
+import katty.storage.FileWatcher;
+import katty.storage.TaskCache;
+import katty.task.Event;
+import katty.task.SortOrder;
+import katty.task.Task;
 
 /**
  * The main entry point for the Katty Chatbot application.
@@ -11,7 +30,14 @@ import java.util.Scanner;
  * </p>
  */
 public class Katty {
-    private static final TaskManager taskManager = new TaskManager();
+    private static final TaskLists lists = new TaskLists();
+    private static TaskManager taskManager = lists.current();
+    private static final ReminderScheduler reminders = new ReminderScheduler();
+    private static final TrigramIndex searchIndex = new TrigramIndex();
+    private static final DateBucketIndex calendar = new DateBucketIndex();
+    private static final int SEARCH_RESULTS = 10;
+    private static Consumer<String> notifier = message -> { };
+    private static FileWatcher watcher;
     private static boolean isExceptionsVisible = false;
     private static final String LOGO =
                     """
@@ -23,12 +49,42 @@ public class Katty {
                     |: | \\  \\   /   /  \\\\  \\     \\:  |         \\:  |      /   /
                     (__|  \\__) (___/    \\___)     \\__|          \\__|     |___/
                     """;
+    private static final String CHIN = "\n > ^ <\n";
+    private static final String DIVIDER = "  --------------------------------------------------\n";
+    private static final StringBuilder responseBuffer = new StringBuilder();
+    private static final CommandRegistry commands = createCommands();
+    private static final Autocomplete autocomplete = new Autocomplete(commands);
+
+    static {
+        if (!TaskManager.isMemoryBounded()) {
+            lists.addListener(reminders);
+            lists.addListener(searchIndex);
+            lists.addListener(calendar);
+            lists.addListener(autocomplete);
+        }
+    }
 
     /**
      * Sets Katty's expression for messages.
      */
     public enum KattyExpression {
-        NORMAL, THINKING, HAPPY, CONFUSED
+        NORMAL("o.o"), THINKING("-.-"), HAPPY("^.^"), CONFUSED("?.?");
+
+        private final String head;
+
+        KattyExpression(String eyes) {
+            this.head = "\n /\\_/\\\n( " + eyes + " )  ";
+        }
+    }
+
+    /**
+     * Sets how responses are rendered.
+     * <p>
+     * {@code CAT} is the ASCII persona used by the CLI and GUI, {@code PLAIN} keeps only the
+     * message lines and {@code JSON} renders each message box as one JSON object per line.
+     */
+    public enum ResponseFormat {
+        CAT, PLAIN, JSON
     }
 
     /**
@@ -48,197 +104,844 @@ public class Katty {
             throw new IllegalArgumentException("Must provide exactly 3 messages.");
         }
 
-        final String eyes = switch (expression) {
-        case HAPPY -> "^.^";
-        case THINKING -> "-.-";
-        case CONFUSED -> "?.?";
-        case NORMAL -> "o.o";
-        };
-
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("\n /\\_/\\\n( %s )  ", eyes));
+        renderMessage(sb, messages, expression);
+        return sb.toString();
+    }
 
-        if (messages[0] != null && !messages[0].isBlank()) {
-            sb.append(messages[0]);
+    /**
+     * Renders a three-line message into {@code out} using the precomputed frame of the expression.
+     */
+    private static void renderMessage(StringBuilder out, String[] messages, KattyExpression expression) {
+        out.append(expression.head);
+        if (!isBlank(messages[0])) {
+            out.append(messages[0]);
         }
-        sb.append("\n > ^ <\n");
-
-        boolean hasDetails = (messages[1] != null && !messages[1].isBlank())
-                || (messages[2] != null && !messages[2].isBlank());
-
-        if (hasDetails) {
-            sb.append("  --------------------------------------------------\n");
-            if (messages[1] != null && !messages[1].isBlank()) {
-                sb.append("  ").append(messages[1]).append("\n");
+        out.append(CHIN);
+
+        boolean hasFirstDetail = !isBlank(messages[1]);
+        boolean hasSecondDetail = !isBlank(messages[2]);
+        if (hasFirstDetail || hasSecondDetail) {
+            out.append(DIVIDER);
+            if (hasFirstDetail) {
+                out.append("  ").append(messages[1]).append('\n');
             }
-            if (messages[2] != null && !messages[2].isBlank()) {
-                sb.append("  ").append(messages[2]).append("\n");
+            if (hasSecondDetail) {
+                out.append("  ").append(messages[2]).append('\n');
             }
-            sb.append("  --------------------------------------------------\n");
+            out.append(DIVIDER);
         }
+    }
 
-        return sb.toString();
+    private static boolean isBlank(String message) {
+        return message == null || message.isBlank();
     }
 
     /**
      * Dispatches a KattyResult by formatting it into a Katty-styled message.
      * Automatically handles dev mode visibility and text constraints.
      *
+     * The result's data is only rendered if it is actually shown.
+     *
+     * @param out The buffer to render the message into.
      * @param result The result to be processed.
-     * @return A formatted ASCII cat message string.
+     * @param format The format to render the message in.
      */
-    private static String dispatch(KattyResult result) {
+    private static void dispatch(StringBuilder out, KattyResult result, ResponseFormat format) {
         KattyExpression expression = result.isSuccess() ? KattyExpression.NORMAL : KattyExpression.CONFUSED;
 
         String mainMsg = result.getMessage();
-        String detail = result.isSuccess() ? result.getData() : result.getException().getMessage();
+        String detail = result.isSuccess() ? result.getData() : result.getError().getMessage();
         String devLabel = "";
 
         if (!result.isSuccess() && isExceptionsVisible) {
             expression = KattyExpression.THINKING;
-            devLabel = "DEBUG: [" + result.getException().getClass().getSimpleName() + "]";
+            devLabel = "DEBUG: [" + result.getException().getClass().getSimpleName() + "] "
+                    + result.getError().name();
         }
 
-        return kattyMessage(new String[]{mainMsg, devLabel, detail}, expression);
+        frame(out, format, new String[]{mainMsg, devLabel, detail}, expression);
     }
 
-    public static String getInitialGreeting() {
+    /**
+     * Renders a three-line message into {@code out} in the given format.
+     *
+     * @param out The buffer to render the message into.
+     * @param format The format to render the message in.
+     * @param messages An array of exactly 3 Strings, as accepted by {@link #kattyMessage}.
+     * @param expression The facial expression used for the message.
+     */
+    private static void frame(StringBuilder out, ResponseFormat format, String[] messages,
+            KattyExpression expression) {
+        switch (format) {
+        case CAT -> renderMessage(out, messages, expression);
+        case PLAIN -> {
+            for (String message : messages) {
+                if (!isBlank(message)) {
+                    out.append(message).append('\n');
+                }
+            }
+        }
+        case JSON -> {
+            out.append("{\"expression\":\"").append(expression.name().toLowerCase()).append("\",\"lines\":[");
+            boolean isFirst = true;
+            for (String message : messages) {
+                if (!isBlank(message)) {
+                    if (!isFirst) {
+                        out.append(',');
+                    }
+                    appendJsonString(out, message);
+                    isFirst = false;
+                }
+            }
+            out.append("]}\n");
+        }
+        }
+    }
+
+    /**
+     * Renders a block of raw data, such as a task list, into {@code out} in the given format.
+     */
+    private static void raw(StringBuilder out, ResponseFormat format, String data) {
+        switch (format) {
+        case CAT -> out.append(data);
+        case PLAIN -> out.append(data).append('\n');
+        case JSON -> {
+            out.append("{\"data\":");
+            appendJsonString(out, data);
+            out.append("}\n");
+        }
+        }
+    }
+
+    private static void appendJsonString(StringBuilder out, String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '"' -> out.append("\\\"");
+            case '\\' -> out.append("\\\\");
+            case '\n' -> out.append("\\n");
+            case '\r' -> out.append("\\r");
+            case '\t' -> out.append("\\t");
+            default -> {
+                if (c < 0x20) {
+                    out.append(String.format("\\u%04x", (int) c));
+                } else {
+                    out.append(c);
+                }
+            }
+            }
+        }
+        out.append('"');
+    }
+
+    public static synchronized String getInitialGreeting() {
         StringBuilder sb = new StringBuilder();
         sb.append("\n\nWelcome to\n").append(LOGO).append("\n");
-        sb.append(kattyMessage(new String[]{"Hi there! Katty's ready to help!", "", ""},
-                KattyExpression.NORMAL));
+        renderMessage(sb, new String[]{"Hi there! Katty's ready to help!", "", ""},
+                KattyExpression.NORMAL);
 
-        KattyResult loadResult = taskManager.loadFile();
+        KattyResult loadResult = lists.use(TaskLists.DEFAULT_LIST);
+        taskManager = lists.current();
 
         if (loadResult.isSuccess()) {
-            if (loadResult.getException() != null) {
-                sb.append(kattyMessage(new String[]{
+            if (loadResult.getError() != null) {
+                renderMessage(sb, new String[]{
                     "I found your tasks but skipped over some messy parts...",
-                    loadResult.getException().getMessage(),
-                    "Close the app now if you want to fix the file manually!"
-                }, KattyExpression.CONFUSED));
+                    loadResult.getError().getMessage(),
+                    "Fix the file by hand and I'll pick up the changes!"
+                }, KattyExpression.CONFUSED);
             } else {
-                sb.append(kattyMessage(new String[]{"I found a save file!", "", "Data has been restored."},
-                        KattyExpression.HAPPY));
+                renderMessage(sb, new String[]{"I found a save file!", "", "Data has been restored."},
+                        KattyExpression.HAPPY);
             }
         } else {
-            sb.append(kattyMessage(new String[]{
+            renderMessage(sb, new String[]{
                 "Meow! I couldn't load your tasks.",
                 loadResult.getMessage(),
                 "I'll start a fresh list for you!"
-            }, KattyExpression.CONFUSED));
+            }, KattyExpression.CONFUSED);
         }
         return sb.toString();
     }
 
     public static String getResponse(String userCommand) {
+        return getResponse(userCommand, ResponseFormat.CAT);
+    }
+
+    /**
+     * Suggests ways to finish a command while it is being typed, see {@link Autocomplete}.
+     * <p>
+     * Meant to be called off the GUI thread, as it waits for a running command to finish.
+     * </p>
+     *
+     * @param input the input typed so far
+     * @return the suggestions, best first
+     */
+    public static synchronized List<Autocomplete.Suggestion> suggest(String input) {
+        return autocomplete.suggest(input, taskManager);
+    }
+
+    /**
+     * Executes a user command and renders Katty's reply in the given format.
+     * <p>
+     * Calls are serialized, so the same task list can be driven from the GUI, CLI
+     * and {@link KattyServer} connections at once. Changes made by other Katty processes
+     * are picked up before each command runs. Whatever the command changes is recorded as
+     * one change in the {@link UndoHistory}.
+     *
+     * @param userCommand The raw command entered by the user.
+     * @param format The format to render the reply in.
+     * @return The rendered reply.
+     */
+    public static synchronized String getResponse(String userCommand, ResponseFormat format) {
+        StringBuilder response = responseBuffer;
+        response.setLength(0);
+        UndoHistory history = lists.getHistory();
         try {
-            StringBuilder response = new StringBuilder();
-            String[] command = userCommand.split(" ", 2);
-            command[0] = command[0].toLowerCase();
+            taskManager.syncLog();
+            history.begin();
+            run(CommandArgs.tokenize(userCommand), response, format);
+            KattyResult conflict = taskManager.takeMergeConflict();
+            if (conflict != null) {
+                dispatch(response, conflict, format);
+            }
+            return response.toString();
+        } catch (Exception e) {
+            response.setLength(0);
+            dispatch(response, new KattyResult("Internal Error!", e), format);
+            return response.toString();
+        } finally {
+            history.end(userCommand.strip());
+        }
+    }
 
-            switch (command[0]) {
+    /**
+     * Looks up the command named in {@code args} and runs it.
+     *
+     * @return {@code true} if the command succeeded
+     */
+    private static boolean run(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        if (args.getName().isEmpty()) {
+            dispatch(out, new KattyResult(false, "Meow?",
+                    "(Try typing a command...)", KattyError.EMPTY_INPUT), format);
+            return false;
+        }
 
-            case "" -> response.append(dispatch(new KattyResult(false, "Meow?",
-                    "(Try typing a command...)", KattyException.emptyInputException())));
+        List<String> candidates = commands.resolve(args.getName());
+        if (candidates.size() == 1) {
+            return commands.execute(candidates.get(0), args, out, format);
+        }
 
-            case "dev" -> {
-                isExceptionsVisible = !isExceptionsVisible;
-                String status = isExceptionsVisible ? "enabled!" : "disabled.";
-                String sub = isExceptionsVisible ? "I'll have to think extra hard now..." : "";
-                response.append(kattyMessage(new String[]{"Dev mode " + status, "", sub},
-                        isExceptionsVisible ? KattyExpression.THINKING : KattyExpression.NORMAL));
-            }
+        if (candidates.isEmpty()) {
+            dispatch(out, new KattyResult(false, "I'm not sure what to do...",
+                    "(Try typing a valid command...)", KattyError.INVALID_COMMAND), format);
+        } else {
+            dispatch(out, new KattyResult(false, "Did you mean " + String.join(" or ", candidates) + "?",
+                    "", KattyError.AMBIGUOUS_COMMAND), format);
+        }
+        return false;
+    }
 
-            case "todo", "deadline", "event" -> {
-                String input = (command.length == 2) ? command[1] : "";
-                response.append(dispatch(taskManager.parser(command[0], input)));
-            }
+    private static CommandRegistry createCommands() {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("dev", Katty::toggleDevMode);
+        registry.register("todo", Katty::addTask);
+        registry.register("deadline", Katty::addTask);
+        registry.register("event", Katty::addTask);
+        registry.register("list", Katty::listTasks);
+        registry.register("listbyname", Katty::listTasks);
+        registry.register("mark", Katty::markTask);
+        registry.register("unmark", Katty::markTask);
+        registry.register("delete", Katty::deleteTask);
+        registry.register("find", Katty::findTasks);
+        registry.register("search", Katty::searchTasks);
+        registry.register("archive", Katty::archiveTasks);
+        registry.register("unarchive", Katty::unarchiveTask);
+        registry.register("import", Katty::importTasks);
+        registry.register("export", Katty::exportTasks);
+        registry.register("compress", Katty::compressSaveFile);
+        registry.register("reload", Katty::reloadSaveFile);
+        registry.register("upcoming", Katty::showUpcoming);
+        registry.register("overdue", Katty::showOverdue);
+        registry.register("today", Katty::showDays);
+        registry.register("tomorrow", Katty::showDays);
+        registry.register("week", Katty::showDays);
+        registry.register("use", Katty::useList);
+        registry.register("lists", Katty::showLists);
+        registry.register("move", Katty::moveTask);
+        registry.register("batch", Katty::runBatch);
+        registry.register("dedupe", Katty::dedupeTasks);
+        registry.register("sort", Katty::sortTasks);
+        registry.register("backup", Katty::backupList);
+        registry.register("backups", Katty::listBackups);
+        registry.register("restore", Katty::restoreBackup);
+        registry.register("undo", Katty::undoChange);
+        registry.register("redo", Katty::undoChange);
+        registry.register("stats", Katty::showStats);
+        registry.register("cache", Katty::showCache);
+        registry.alias("ls", "list");
+        registry.alias("rm", "delete");
+        return registry;
+    }
 
-            case "list", "listbyname" -> {
-                response.append(kattyMessage(new String[]{"Let me recall try to recall!", "",
-                    "If I remember correctly..."}, KattyExpression.THINKING));
+    private static boolean toggleDevMode(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        isExceptionsVisible = !isExceptionsVisible;
+        String status = isExceptionsVisible ? "enabled!" : "disabled.";
+        String sub = isExceptionsVisible ? "I'll have to think extra hard now..." : "";
+        frame(out, format, new String[]{"Dev mode " + status, "", sub},
+                isExceptionsVisible ? KattyExpression.THINKING : KattyExpression.NORMAL);
+        return true;
+    }
 
-                String tasks = command[0].equals("list") ? taskManager.getFormattedTaskList()
-                        : taskManager.getListByName();
+    private static boolean addTask(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        KattyResult result = taskManager.parser(args.getName(), args.getRest());
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
 
-                if (tasks.isBlank()) {
-                    response.append(kattyMessage(new String[]{"Nothing to do!", "", ""},
-                            KattyExpression.NORMAL));
-                } else {
-                    response.append(tasks);
-                }
-                response.append(kattyMessage(new String[]{"Hope that helps!", "", ""},
-                        KattyExpression.HAPPY));
-            }
+    private static boolean listTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        frame(out, format, new String[]{"Let me recall try to recall!", "",
+            "If I remember correctly..."}, KattyExpression.THINKING);
 
-            case "mark", "unmark" -> {
-                try {
-                    int i = (command.length == 2) ? Integer.parseInt(command[1]) : -1;
-                    KattyResult res = command[0].equals("mark") ? taskManager.markDone(i)
-                            : taskManager.markIncomplete(i);
-                    response.append(dispatch(res));
-                } catch (NumberFormatException e) {
-                    response.append(dispatch(new KattyResult(false, "Invalid task number!",
-                            "", KattyException.noTaskFound())));
-                }
-            }
+        String tasks = args.getName().equals("list") ? taskManager.getFormattedTaskList()
+                : taskManager.getListByName();
 
-            case "delete" -> {
-                try {
-                    int i = (command.length == 2) ? Integer.parseInt(command[1]) : -1;
-                    KattyResult result = taskManager.deleteTask(i);
-                    if (result.isSuccess()) {
-                        response.append(kattyMessage(new String[]{
-                            "Got it! I've forgotten all about:",
-                            result.getData(),
-                            "What were we talking about...?"
-                        }, KattyExpression.NORMAL));
-                    } else {
-                        response.append(dispatch(result));
-                    }
-                } catch (NumberFormatException e) {
-                    response.append(dispatch(new KattyResult(false, "Invalid task number!",
-                            "", KattyException.noTaskFound())));
-                }
+        if (tasks.isBlank()) {
+            frame(out, format, new String[]{"Nothing to do!", "", ""}, KattyExpression.NORMAL);
+        } else {
+            raw(out, format, tasks);
+        }
+        frame(out, format, new String[]{"Hope that helps!", "", ""}, KattyExpression.HAPPY);
+        return true;
+    }
+
+    private static boolean markTask(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        int i = args.hasRest() ? parseIndex(args.getRest()) : -1;
+        if (i < 0) {
+            dispatch(out, new KattyResult(false, "Invalid task number!",
+                    "", KattyError.NO_TASK_FOUND), format);
+            return false;
+        }
+        KattyResult result = args.getName().equals("mark") ? taskManager.markDone(i)
+                : taskManager.markIncomplete(i);
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    private static boolean deleteTask(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        int i = args.hasRest() ? parseIndex(args.getRest()) : -1;
+        if (i < 0) {
+            dispatch(out, new KattyResult(false, "Invalid task number!",
+                    "", KattyError.NO_TASK_FOUND), format);
+            return false;
+        }
+        KattyResult result = taskManager.deleteTask(i);
+        if (!result.isSuccess()) {
+            dispatch(out, result, format);
+            return false;
+        }
+        frame(out, format, new String[]{
+            "Got it! I've forgotten all about:",
+            result.getData(),
+            "What were we talking about...?"
+        }, KattyExpression.NORMAL);
+        return true;
+    }
+
+    private static boolean findTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        if (!args.hasRest()) {
+            dispatch(out, new KattyResult(false, "Find what?",
+                    "Try: find book", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        String scope = args.size() > 0 && args.get(0).startsWith("--") ? args.get(0) : "";
+        if (!scope.isEmpty() && args.size() == 1) {
+            dispatch(out, new KattyResult(false, "Find what?",
+                    "Try: find " + scope + " book", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        KattyResult result = switch (scope) {
+        case "--archived" -> taskManager.findArchivedTasks(args.getFrom(1));
+        case "--all" -> lists.findEverywhere(args.getFrom(1));
+        default -> taskManager.findTasksByName(args.getRest());
+        };
+        if (!result.isSuccess()) {
+            dispatch(out, result, format);
+            return false;
+        }
+        frame(out, format, new String[]{"Searching my memory...", "", ""}, KattyExpression.THINKING);
+        raw(out, format, "----------\n" + result.getData() + "\n----------\n");
+        frame(out, format, new String[]{"Found them!", "", ""}, KattyExpression.HAPPY);
+        return true;
+    }
+
+    /**
+     * Shows the tasks whose names best match the keywords, even if they are misspelt.
+     */
+    private static boolean searchTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        if (!args.hasRest() || args.getRest().isBlank()) {
+            dispatch(out, new KattyResult(false, "Search for what?",
+                    "Try: search reprot", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        List<Task> matches = indexOf(searchIndex, TrigramIndex::new).search(args.getRest(), SEARCH_RESULTS).stream()
+                .map(TrigramIndex.Match::task)
+                .toList();
+        if (matches.isEmpty()) {
+            dispatch(out, new KattyResult(false, "Nothing even close...",
+                    "", KattyError.SEARCH_RESULT_EMPTY), format);
+            return false;
+        }
+        frame(out, format, new String[]{"Sniffing around...", "", ""}, KattyExpression.THINKING);
+        raw(out, format, "----------\n" + taskManager.getFormattedTasks(matches) + "\n----------\n");
+        frame(out, format, new String[]{"Is this what you meant?", "", ""}, KattyExpression.HAPPY);
+        return true;
+    }
+
+    /**
+     * Archives every completed task, or with {@code archive [days]} only those dated more than that many days ago.
+     */
+    private static boolean archiveTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        int days = args.size() > 0 ? parseIndex(args.get(0)) : -1;
+        if (args.size() > 0 && days < 0) {
+            dispatch(out, new KattyResult(false, "How many days old?",
+                    "Try: archive 30", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        KattyResult result = taskManager.archiveCompleted(days);
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    private static boolean unarchiveTask(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        int i = args.hasRest() ? parseIndex(args.getRest()) : -1;
+        if (i < 0) {
+            dispatch(out, new KattyResult(false, "Invalid task number!",
+                    "Try: find --archived book", KattyError.NO_ARCHIVED_TASK), format);
+            return false;
+        }
+        KattyResult result = taskManager.unarchive(i);
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Imports tasks from a CSV or iCalendar file, e.g. {@code import tasks.csv}.
+     */
+    private static boolean importTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        if (!args.hasRest() || args.getRest().isBlank()) {
+            dispatch(out, new KattyResult(false, "Import what?",
+                    "Try: import tasks.csv", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        KattyResult result = taskManager.importTasks(Path.of(args.getRest().strip()),
+                progress -> notifier.accept(kattyMessage(new String[]{"Still importing...", "", progress},
+                        KattyExpression.THINKING)));
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Exports all tasks to a CSV or iCalendar file, e.g. {@code export tasks.ics}.
+     */
+    private static boolean exportTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        if (!args.hasRest() || args.getRest().isBlank()) {
+            dispatch(out, new KattyResult(false, "Export where?",
+                    "Try: export tasks.ics", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        KattyResult result = taskManager.exportTasks(Path.of(args.getRest().strip()));
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Turns GZIP compression of the save file on or off, e.g. {@code compress on}.
+     */
+    private static boolean compressSaveFile(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        String mode = args.size() == 1 ? args.get(0).toLowerCase() : "";
+        if (!mode.equals("on") && !mode.equals("off")) {
+            dispatch(out, new KattyResult(false, "Should I squish your save file?",
+                    "Try: compress on", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        KattyResult result = taskManager.setCompressed(mode.equals("on"));
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Picks up changes made to the save file outside Katty, in case they were not noticed.
+     */
+    private static boolean reloadSaveFile(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        KattyResult result = taskManager.reloadChanges();
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Shows the next tasks that are due, {@code upcoming [n]} shows up to n of them.
+     */
+    private static boolean showUpcoming(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        int n = args.size() > 0 ? parseIndex(args.get(0)) : 5;
+        if (n <= 0) {
+            dispatch(out, new KattyResult(false, "How many should I look for?",
+                    "Try: upcoming 5", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        List<Task> upcoming = indexOf(reminders, ReminderScheduler::new).upcoming(n);
+        if (upcoming.isEmpty()) {
+            frame(out, format, new String[]{"Nothing coming up!", "", "Time for a nap..."}, KattyExpression.HAPPY);
+            return true;
+        }
+        frame(out, format, new String[]{"Here's what's coming up next!", "", ""}, KattyExpression.THINKING);
+        raw(out, format, taskManager.getFormattedTasks(upcoming));
+        frame(out, format, new String[]{"Don't leave them too late!", "", ""}, KattyExpression.NORMAL);
+        return true;
+    }
+
+    private static boolean showOverdue(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        List<Task> overdue = indexOf(calendar, DateBucketIndex::new).overdue(LocalDateTime.now());
+        if (overdue.isEmpty()) {
+            frame(out, format, new String[]{"Nothing is overdue!", "", "Purrfect!"}, KattyExpression.HAPPY);
+            return true;
+        }
+        frame(out, format, new String[]{"Uh oh, these are overdue...", "", ""}, KattyExpression.CONFUSED);
+        raw(out, format, taskManager.getFormattedTasks(overdue));
+        frame(out, format, new String[]{"Better get on them!", "", ""}, KattyExpression.NORMAL);
+        return true;
+    }
+
+    /**
+     * Shows the incomplete deadlines and events of {@code today}, {@code tomorrow},
+     * or the {@code week} starting today.
+     */
+    private static boolean showDays(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        LocalDate today = LocalDate.now();
+        String when = args.getName().equals("week") ? "this week" : args.getName();
+        DateBucketIndex days = indexOf(calendar, DateBucketIndex::new);
+        List<Task> due = switch (args.getName()) {
+        case "tomorrow" -> days.between(today.plusDays(1), today.plusDays(1));
+        case "week" -> days.between(today, today.plusDays(6));
+        default -> days.between(today, today);
+        };
+        if (due.isEmpty()) {
+            frame(out, format, new String[]{"Nothing due " + when + "!", "", "Time for a nap..."},
+                    KattyExpression.HAPPY);
+            return true;
+        }
+        frame(out, format, new String[]{"Here's what's due " + when + "!", "", ""}, KattyExpression.THINKING);
+        raw(out, format, taskManager.getFormattedTasks(due));
+        frame(out, format, new String[]{"You've got this!", "", ""}, KattyExpression.NORMAL);
+        return true;
+    }
+
+    /**
+     * Starts reminding the user of tasks as they fall due.
+     *
+     * @param notifier receives each reminder as a Katty-styled message, on the reminder thread,
+     *     along with progress messages from long-running commands
+     */
+    public static void startReminders(Consumer<String> notifier) {
+        Katty.notifier = notifier;
+        reminders.start(task -> notifier.accept(kattyMessage(new String[]{
+            "Meow! Just a reminder:",
+            task.toString(),
+            task instanceof Event ? "It's starting now!" : "It's due now!"
+        }, KattyExpression.HAPPY)));
+    }
+
+    /**
+     * Switches to another task list, creating it if needed, e.g. {@code use work}.
+     */
+    private static boolean useList(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        if (args.size() != 1) {
+            dispatch(out, new KattyResult(false, "Which list?",
+                    "Try: use work", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        KattyResult result = lists.use(args.get(0));
+        if (result.getError() == KattyError.INVALID_LIST_NAME) {
+            dispatch(out, result, format);
+            return false;
+        }
+        taskManager = lists.current();
+        watchSaveFile();
+        String sub = result.getError() == KattyError.NO_SAVE_FILE ? "It's a brand new list!"
+                : result.getError() != null ? result.getError().getMessage()
+                : String.format("It has %d task%s.", taskManager.size(), taskManager.size() == 1 ? "" : "s");
+        frame(out, format, new String[]{"Now using the " + lists.getCurrentName() + " list!", "", sub},
+                result.getError() == null || result.getError() == KattyError.NO_SAVE_FILE
+                        ? KattyExpression.HAPPY : KattyExpression.CONFUSED);
+        return true;
+    }
+
+    private static boolean showLists(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        frame(out, format, new String[]{"Here are all your lists!", "", ""}, KattyExpression.HAPPY);
+        raw(out, format, lists.describe());
+        return true;
+    }
+
+    /**
+     * Moves a task into another list, e.g. {@code move 5 personal}.
+     */
+    private static boolean moveTask(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        int i = args.size() == 2 ? parseIndex(args.get(0)) : -1;
+        if (i < 0) {
+            dispatch(out, new KattyResult(false, "Move what where?",
+                    "Try: move 5 personal", KattyError.INVALID_COMMAND), format);
+            return false;
+        }
+        KattyResult result = lists.move(i, args.get(1));
+        if (!result.isSuccess()) {
+            dispatch(out, result, format);
+            return false;
+        }
+        frame(out, format, new String[]{"Moved it over to " + args.get(1) + "!", result.getData(), ""},
+                KattyExpression.HAPPY);
+        return true;
+    }
+
+    /**
+     * Starts watching the save file and its change log, so changes made outside Katty,
+     * or by another Katty process, are applied as they happen.
+     * <p>
+     * Changes are reported to the notifier given to {@link #startReminders(Consumer)}.
+     * Nothing is watched if the file system does not support it, {@code reload} still works then.
+     * </p>
+     */
+    public static synchronized void startWatching() {
+        if (watcher != null) {
+            return;
+        }
+        try {
+            watcher = new FileWatcher(Katty::reloadChangedFile);
+        } catch (IOException e) {
+            return;
+        }
+        watchSaveFile();
+    }
+
+    private static void watchSaveFile() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.watch(taskManager.getSavePath());
+            if (taskManager.getLogPath() != null) {
+                watcher.watch(taskManager.getLogPath());
             }
+        } catch (IOException e) {
+            // Only the reload command picks up changes to this file then
+        }
+    }
 
-            case "find" -> {
-                if (command.length != 2) {
-                    response.append(dispatch(new KattyResult(false, "Find what?",
-                            "Try: find book", KattyException.invalidCommand())));
-                } else {
-                    KattyResult result = taskManager.findTasksByName(command[1]);
-                    if (result.isSuccess()) {
-                        response.append(kattyMessage(new String[]{"Searching my memory...", "", ""},
-                                KattyExpression.THINKING));
-                        response.append("----------\n").append(result.getData()).append("\n----------\n");
-                        response.append(kattyMessage(new String[]{"Found them!", "", ""}, KattyExpression.HAPPY));
-                    } else {
-                        response.append(dispatch(result));
-                    }
-                }
+    private static synchronized void reloadChangedFile(Path file) {
+        KattyResult result;
+        if (file.equals(taskManager.getSavePath().toAbsolutePath().normalize())) {
+            result = taskManager.reloadChanges();
+        } else if (taskManager.getLogPath() != null
+                && file.equals(taskManager.getLogPath().toAbsolutePath().normalize())) {
+            result = taskManager.syncLog();
+        } else {
+            return;
+        }
+        if (result.getError() == null && result.getData().isEmpty()) {
+            return;
+        }
+        notifier.accept(kattyMessage(new String[]{
+            result.getMessage(),
+            result.getData(),
+            result.getError() != null ? result.getError().getMessage() : ""
+        }, result.getError() != null ? KattyExpression.CONFUSED : KattyExpression.HAPPY));
+    }
+
+    /**
+     * Runs several commands separated by {@code ;}, e.g. {@code batch todo a; todo b}.
+     */
+    private static boolean runBatch(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        boolean isSuccess = true;
+        for (String part : args.getRest().split(";")) {
+            String input = part.strip();
+            if (!input.isEmpty()) {
+                isSuccess &= run(CommandArgs.tokenize(input), out, format);
             }
+        }
+        return isSuccess;
+    }
+
+    /**
+     * Changes the order every list is kept in, e.g. {@code sort by status, date}, or shows it.
+     */
+    private static boolean sortTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        String fields = args.hasRest() ? args.getRest().strip().replaceFirst("^by(\\s+|$)", "") : "";
+        if (fields.isEmpty()) {
+            frame(out, format, new String[]{"I'm keeping your tasks sorted by " + lists.getSortOrder() + ".", "",
+                "Try: sort by status, date"}, KattyExpression.NORMAL);
+            return true;
+        }
+        KattyResult result;
+        try {
+            result = lists.setSortOrder(SortOrder.parse(fields));
+        } catch (KattyException e) {
+            result = new KattyResult(false, "I don't know how to sort by that!", "", e.getError());
+        }
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Backs up the current list, reporting through the notifier once the backup is written.
+     */
+    private static boolean backupList(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        KattyResult result = lists.backup(written -> notifier.accept(kattyMessage(new String[]{
+            written.getMessage(),
+            written.getData(),
+            written.getError() != null ? written.getError().getMessage() : ""
+        }, written.isSuccess() ? KattyExpression.HAPPY : KattyExpression.CONFUSED)));
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    private static boolean listBackups(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        KattyResult result = lists.listBackups();
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Restores the current list to one of its backups, e.g. {@code restore 3}.
+     */
+    private static boolean restoreBackup(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        int version = args.hasRest() ? parseIndex(args.getRest()) : -1;
+        if (version < 0) {
+            dispatch(out, new KattyResult(false, "Which version?", "Try: backups",
+                    KattyError.NO_SUCH_BACKUP), format);
+            return false;
+        }
+        KattyResult result = lists.restore(version);
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Removes tasks that are duplicates of earlier ones in the current list.
+     */
+    private static boolean dedupeTasks(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        KattyResult result = taskManager.dedupe();
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
 
-            default -> response.append(dispatch(new KattyResult(false, "I'm not sure what to do...",
-                    "(Try typing a valid command...)", KattyException.invalidCommand())));
+    /**
+     * Undoes or redoes the last change, e.g. a mistaken {@code delete 3}.
+     */
+    private static boolean undoChange(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        KattyResult result = args.getName().equals("undo") ? lists.undo() : lists.redo();
+        dispatch(out, result, format);
+        return result.isSuccess();
+    }
+
+    /**
+     * Returns an index of the current list.
+     * <p>
+     * An index holds on to every task it covers, so in memory-bounded mode none is kept,
+     * and a fresh one is built from the list for each command instead.
+     * </p>
+     */
+    private static <T extends TaskListener> T indexOf(T kept, Supplier<T> fresh) {
+        if (!TaskManager.isMemoryBounded()) {
+            return kept;
+        }
+        T index = fresh.get();
+        taskManager.addListener(index);
+        taskManager.removeListener(index);
+        return index;
+    }
+
+    private static boolean showCache(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        TaskCache cache = TaskManager.getCache();
+        if (cache == null) {
+            frame(out, format, new String[]{"I'm keeping every task in mind!", "",
+                "Start me with -Dkatty.heapBudget=64m to cap that."}, KattyExpression.HAPPY);
+            return true;
+        }
+        frame(out, format, new String[]{"Here's what I'm keeping in mind!", "", ""}, KattyExpression.THINKING);
+        raw(out, format, cache.describe());
+        return true;
+    }
+
+    private static boolean showStats(CommandArgs args, StringBuilder out, ResponseFormat format) {
+        frame(out, format, new String[]{"Here's how hard I've been working!", "", ""}, KattyExpression.HAPPY);
+        raw(out, format, commands.getStats().stream()
+                .filter(stats -> stats.getInvocations() > 0)
+                .map(CommandStats::toString)
+                .collect(Collectors.joining("\n")));
+        return true;
+    }
+
+    /**
+     * Parses a task number typed by the user without throwing on bad input.
+     *
+     * @param input the text following the command
+     * @return the parsed number, or -1 if the input is not a plain non-negative number
+     */
+    private static int parseIndex(String input) {
+        String digits = input.strip();
+        if (digits.isEmpty() || digits.length() > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
             }
-            return response.toString();
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
 
-        } catch (Exception e) {
-            return dispatch(new KattyResult(false, "Internal Error!", "", e));
+    /**
+     * Tells the startup benchmark that the first response is showing, if the JVM
+     * was started with {@code -Dkatty.reportStartup=true}.
+     *
+     * @param frontEnd the name of the front end showing it
+     */
+    public static void reportStartup(String frontEnd) {
+        if (Boolean.getBoolean("katty.reportStartup")) {
+            System.err.println("katty-startup " + frontEnd);
         }
     }
 
+    /**
+     * Stops the reminders, waits for backups still being written and lets go of the save
+     * files, before Katty exits.
+     */
+    public static synchronized void shutdown() {
+        reminders.stop();
+        lists.close();
+    }
+
     /**
      * Initializes the chatbot, displays the welcome logo, and starts
      * the interaction session.
+     * <p>
+     * The session ends on {@code bye}, or when the input runs out, so scripts can pipe
+     * commands in.
+     * </p>
      */
     public static void kattyStart() {
         System.out.println(getInitialGreeting());
+        startReminders(System.out::println);
+        startWatching();
+
+        reportStartup("cli");
 
         Scanner scanner = new Scanner(System.in);
-        while (true) {
+        while (scanner.hasNextLine()) {
             String input = scanner.nextLine().strip();
             if (input.isEmpty()) {
                 continue;
@@ -252,6 +955,7 @@ public class Katty {
             }
         }
         scanner.close();
+        shutdown();
 
         System.out.println(kattyMessage(new String[]{"Always glad to help!", "", "Goodbye..."},
                 KattyExpression.HAPPY));
@@ -0,0 +1,79 @@
+package katty;
+
+import katty.task.Deadline;
+import katty.task.Event;
+import katty.task.RecurringTask;
+
+/**
+ * Represents the errors a user can run into while using Katty.
+ *
+ * <p>Each error code carries its user-facing message and a single preallocated,
+ * stackless {@link KattyException}. Failing commands pass the code around in a
+ * {@link KattyResult}, so no exception has to be built or thrown for them.</p>
+ */
+public enum KattyError {
+    INVALID_TODO("Format: todo [description]"),
+    INVALID_DEADLINE(String.format("Format: deadline [description] /by %s", Deadline.DEADLINE_FORMAT)),
+    INVALID_EVENT(String.format("Format: event [description] /from %s /to %s",
+            Event.EVENT_FORMAT, Event.EVENT_FORMAT)),
+    INVALID_RECURRENCE(String.format("Format: [deadline or event] /every day|week /until %s",
+            RecurringTask.RECURRING_FORMAT)),
+    NO_TASK_FOUND("The number is not a valid index in the task list."),
+    SEARCH_RESULT_EMPTY("Meow! I couldn't find any tasks matching that keyword."),
+    INVALID_COMMAND("Invalid command entered."),
+    AMBIGUOUS_COMMAND("That command is too short for me to tell which one you meant."),
+    INVALID_COMPLETION("Incomplete tasks can only be marked as complete, "
+            + "complete tasks can only be marked as incomplete."),
+    EMPTY_INPUT("User input is empty."),
+    FAIL_TO_SAVE("Save file could not be written to disk."),
+    NO_SAVE_FILE("No valid save file was found."),
+    CORRUPT_FILE("Save file is corrupted."),
+    PARTIAL_LOAD_SAVE_FILE("Found some hairballs in your file and skipped them! "
+            + "Note: I keep the lines I couldn't read in the file until you fix them by hand."),
+    BAD_DATE_FORMAT("The date given is either invalid or not in a valid format as dd-MM-yyyy HH:mm."),
+    INVALID_TIME_RANGE("Meow! Your event can't end before it starts. Are you trying to time travel?"),
+    ARCHIVE_EMPTY("Only completed tasks can be archived."),
+    FAIL_TO_ARCHIVE("Archive file could not be read or written."),
+    NO_ARCHIVED_TASK("The number is not a valid index in the archive."),
+    FAIL_TO_TRANSFER("The file could not be read or written."),
+    NOTHING_IMPORTED("No row in the file was a valid task that is not in the list yet."),
+    SAVE_CONFLICT("Your save file was changed elsewhere while Katty was changing the same tasks. "
+            + "Katty's version of those tasks was kept."),
+    INVALID_LIST_NAME("List names can only use letters, digits, - and _."),
+    MEMORY_BOUNDED("The save file stays plain text and sorted by date while Katty only keeps part of it in memory."),
+    NOTHING_TO_UNDO(String.format("Katty remembers the last %d changes, even after a restart.",
+            UndoHistory.MAX_CHANGES)),
+    NOTHING_TO_REDO("Only changes undone since the last new change can be redone."),
+    DUPLICATE_TASK("A task of the same type, name and dates is already in the list."),
+    NO_DUPLICATES("Tasks are duplicates if they share their type, name and dates."),
+    INVALID_SORT_ORDER("Format: sort by [date, name, status or type, most important first]"),
+    NO_BACKUPS("Back up the list in use with backup, then list its versions with backups."),
+    NO_SUCH_BACKUP("Format: restore [version], one of the versions listed by backups"),
+    FAIL_TO_BACKUP("Backups could not be read or written."),
+    INTERNAL("Something went wrong inside Katty.");
+
+    private final String message;
+    private final KattyException exception;
+
+    KattyError(String message) {
+        this.message = message;
+        this.exception = new KattyException(this);
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the preallocated exception for this error.
+     * <p>
+     * The exception has no stack trace, it only exists so dev mode and
+     * {@link katty.task.TaskParser} have something to name and throw.
+     * </p>
+     *
+     * @return the stackless {@code KattyException} for this error
+     */
+    public KattyException getException() {
+        return exception;
+    }
+}
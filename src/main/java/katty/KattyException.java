@@ -1,81 +1,99 @@
 package katty;
 
-import katty.task.Deadline;
-import katty.task.Event;
-
 /**
  * Represents custom exceptions used in Katty,
  * capable of providing messages that are more relevant to the dev.
  *
  * <p>This class extends {@code Exception} and provides static methods to
- *  create specific exception messages for common error conditions.</p>
+ *  access the exception for common error conditions. These exceptions are
+ *  preallocated by {@link KattyError} and carry no stack trace, so throwing
+ *  them costs no more than a return.</p>
  */
 public class KattyException extends Exception {
+    private final KattyError error;
+
     public KattyException(String exception) {
         super(exception);
+        this.error = KattyError.INTERNAL;
+    }
+
+    /**
+     * Creates the stackless exception for an error code.
+     *
+     * @param error the error code this exception stands for
+     */
+    KattyException(KattyError error) {
+        super(error.getMessage(), null, false, false);
+        this.error = error;
+    }
+
+    public KattyError getError() {
+        return error;
     }
 
     public static KattyException invalidTodo() {
-        return new KattyException("Format: todo [description]");
+        return KattyError.INVALID_TODO.getException();
     }
 
     public static KattyException invalidDeadline() {
-        return new KattyException(String.format("Format: deadline [description] /by %s", Deadline.DEADLINE_FORMAT));
+        return KattyError.INVALID_DEADLINE.getException();
     }
 
     /**
-     * Creates an exception indicating that an "event" command was entered with an invalid format.
+     * Returns the exception indicating that an "event" command was entered with an invalid format.
      * * <p>The message includes the expected usage pattern, dynamically pulling the
      * required date-time format from the {@code Event} class constants.</p>
      *
      * @return A {@code KattyException} containing the correct format for an event task.
      */
     public static KattyException invalidEvent() {
-        return new KattyException(String.format("Format: event [description] /from %s /to %s",
-                Event.EVENT_FORMAT, Event.EVENT_FORMAT));
+        return KattyError.INVALID_EVENT.getException();
+    }
+
+    public static KattyException invalidRecurrence() {
+        return KattyError.INVALID_RECURRENCE.getException();
     }
 
     public static KattyException noTaskFound() {
-        return new KattyException("The number is not a valid index in the task list.");
+        return KattyError.NO_TASK_FOUND.getException();
     }
 
     public static KattyException searchResultEmpty() {
-        return new KattyException("Meow! I couldn't find any tasks matching that keyword.");
+        return KattyError.SEARCH_RESULT_EMPTY.getException();
     }
 
     public static KattyException invalidCommand() {
-        return new KattyException("Invalid command entered.");
+        return KattyError.INVALID_COMMAND.getException();
     }
 
     /**
-     * Creates an exception indicating a completed task cannot be completed and
+     * Returns the exception indicating a completed task cannot be completed and
      * an incomplete task cannot be unmarked for completion.
      *
      * @return {@code KattyException}
      */
     public static KattyException invalidCompletion() {
-        return new KattyException("Incomplete tasks can only be marked as complete, "
-                                    + "complete tasks can only be marked as incomplete.");
+        return KattyError.INVALID_COMPLETION.getException();
     }
 
     public static KattyException emptyInputException() {
-        return new KattyException("User input is empty.");
+        return KattyError.EMPTY_INPUT.getException();
     }
 
     public static KattyException failToSave() {
-        return new KattyException("Save file could not be written to disk.");
+        return KattyError.FAIL_TO_SAVE.getException();
     }
 
     public static KattyException noSaveFile() {
-        return new KattyException("No valid save file was found.");
+        return KattyError.NO_SAVE_FILE.getException();
     }
 
     public static KattyException corruptFile() {
-        return new KattyException("Save file is corrupted.");
+        return KattyError.CORRUPT_FILE.getException();
     }
 
     /**
-     * Creates an exception indicating that the save file was partially readable.
+     * Returns the exception indicating that the save file was partially readable.
      * <p>
      * This occurs when the loader encounters malformed lines and
      * skips them to recover the remaining valid tasks. It includes a warning that
@@ -87,15 +105,18 @@ public class KattyException extends Exception {
      * @return A {@code KattyException} with a data-loss warning.
      */
     public static KattyException partialLoadSaveFile() {
-        return new KattyException("Found some hairballs in your file and skipped them! "
-                + "Note: Updating your list now will 'groom' the file, permanently deleting the garbled data.");
+        return KattyError.PARTIAL_LOAD_SAVE_FILE.getException();
     }
 
     public static KattyException badDateFormat() {
-        return new KattyException("The date given is either invalid or not in a valid format as dd-MM-yyyy HH:mm.");
+        return KattyError.BAD_DATE_FORMAT.getException();
     }
 
     public static KattyException invalidTimeRange() {
-        return new KattyException("Meow! Your event can't end before it starts. Are you trying to time travel?");
+        return KattyError.INVALID_TIME_RANGE.getException();
+    }
+
+    public static KattyException invalidSortOrder() {
+        return KattyError.INVALID_SORT_ORDER.getException();
     }
 }
@@ -1,5 +1,11 @@
 package katty;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -9,6 +15,8 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
@@ -21,11 +29,23 @@ import javafx.stage.Stage;
  * This class handles the JavaFX lifecycle, including window initialization,
  * styling, and the message-passing loop between the user and the {@link Katty} logic.
  * It uses a chat-style layout with distinct visual styles for user and system messages.
+ * <p>
+ * While a command is typed, {@link Autocomplete} suggestions are looked up on a thread of
+ * their own once typing pauses, shown above the input field, and the first is taken with Tab.
  */
 public class KattyGui extends Application {
+    private static final long SUGGEST_DELAY_MILLIS = 120;
 
     private VBox chatContainer;
     private ScrollPane scrollPane;
+    private Label suggestionLabel;
+    private List<Autocomplete.Suggestion> suggestions = List.of();
+    private ScheduledFuture<?> pendingSuggestion;
+    private final ScheduledExecutorService suggester = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "katty-autocomplete");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Override
     public void start(Stage primaryStage) {
@@ -57,7 +77,16 @@ public class KattyGui extends Application {
         inputBox.setAlignment(Pos.CENTER);
         inputBox.setStyle("-fx-background-color: #3e3e3e;");
 
-        VBox root = new VBox(scrollPane, inputBox);
+        suggestionLabel = new Label();
+        suggestionLabel.setFont(Font.font("Monospaced", 13));
+        suggestionLabel.setStyle("-fx-text-fill: #9e9e9e;");
+        suggestionLabel.setPadding(new Insets(10, 30, 0, 30));
+        showSuggestions(List.of());
+
+        VBox inputArea = new VBox(suggestionLabel, inputBox);
+        inputArea.setStyle("-fx-background-color: #3e3e3e;");
+
+        VBox root = new VBox(scrollPane, inputArea);
         VBox.setVgrow(scrollPane, Priority.ALWAYS);
 
         Scene scene = new Scene(root, 900, 800);
@@ -67,12 +96,61 @@ public class KattyGui extends Application {
         primaryStage.show();
 
         addMessage(Katty.getInitialGreeting(), false);
+        Katty.reportStartup("gui");
+        Katty.startReminders(reminder -> Platform.runLater(() -> addMessage(reminder, false)));
+        Katty.startWatching();
 
         sendButton.setOnAction(e -> handleInput(inputField));
         inputField.setOnAction(e -> handleInput(inputField));
+        inputField.textProperty().addListener((obs, oldText, text) -> scheduleSuggestions(inputField, text));
+        inputField.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.TAB && !suggestions.isEmpty()) {
+                inputField.setText(suggestions.get(0).text());
+                inputField.positionCaret(inputField.getText().length());
+                e.consume();
+            }
+        });
         inputField.requestFocus();
     }
 
+    @Override
+    public void stop() {
+        suggester.shutdownNow();
+        Katty.shutdown();
+    }
+
+    /**
+     * Looks up suggestions once typing pauses, and shows them if the input is still the same by then.
+     */
+    private void scheduleSuggestions(TextField inputField, String text) {
+        if (pendingSuggestion != null) {
+            pendingSuggestion.cancel(false);
+        }
+        showSuggestions(List.of());
+        if (text.isBlank()) {
+            return;
+        }
+        pendingSuggestion = suggester.schedule(() -> {
+            List<Autocomplete.Suggestion> found = Katty.suggest(text);
+            Platform.runLater(() -> {
+                if (inputField.getText().equals(text)) {
+                    showSuggestions(found);
+                }
+            });
+        }, SUGGEST_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void showSuggestions(List<Autocomplete.Suggestion> found) {
+        suggestions = found;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < found.size(); i++) {
+            text.append(i == 0 ? "Tab: " : "\n     ").append(found.get(i).hint());
+        }
+        suggestionLabel.setText(text.toString());
+        suggestionLabel.setVisible(!found.isEmpty());
+        suggestionLabel.setManaged(!found.isEmpty());
+    }
+
     private void handleInput(TextField inputField) {
         String input = inputField.getText().strip();
         if (input.isEmpty()) {
@@ -1,16 +1,21 @@
 package katty;
 
+import java.util.function.Supplier;
+
 /**
  * A utility class to help communicate the result of operations.
  *
  * <p>This class helps to communicate the result of
- * operations back to Katty for dispatch.</p>
+ * operations back to Katty for dispatch. Failures carry a {@link KattyError}
+ * code rather than a freshly built exception, and data is only rendered
+ * once it is actually displayed.</p>
  */
 public class KattyResult {
     private final boolean success;
     private final String message;
-    private final String data;
-    private final Exception exception;
+    private final Supplier<String> data;
+    private final KattyError error;
+    private final Exception cause;
 
     /**
      * A constructor for storing the result.
@@ -18,13 +23,41 @@ public class KattyResult {
      * @param success A boolean value for whether operation was successful
      * @param message A message to convey back to the user
      * @param data The data that was relevant to the operation
-     * @param exception The relevant exception in the event of failure.
+     * @param error The relevant error code in the event of failure.
+     */
+    public KattyResult(boolean success, String message, String data, KattyError error) {
+        this(success, message, data != null ? () -> data : null, error, null);
+    }
+
+    /**
+     * A constructor for storing the result with data that is rendered on demand.
+     *
+     * @param success A boolean value for whether operation was successful
+     * @param message A message to convey back to the user
+     * @param data Renders the data that was relevant to the operation
+     * @param error The relevant error code in the event of failure.
+     */
+    public KattyResult(boolean success, String message, Supplier<String> data, KattyError error) {
+        this(success, message, data, error, null);
+    }
+
+    /**
+     * A constructor for storing the result of an unexpected failure.
+     *
+     * @param message A message to convey back to the user
+     * @param cause The exception that caused the failure
      */
-    public KattyResult(boolean success, String message, String data, Exception exception) {
+    public KattyResult(String message, Exception cause) {
+        this(false, message, null, KattyError.INTERNAL, cause);
+    }
+
+    private KattyResult(boolean success, String message, Supplier<String> data, KattyError error,
+            Exception cause) {
         this.success = success;
         this.message = message != null ? message : "";
-        this.data = data != null ? data : "";
-        this.exception = exception;
+        this.data = data;
+        this.error = error;
+        this.cause = cause;
     }
 
     public boolean isSuccess() {
@@ -35,11 +68,33 @@ public class KattyResult {
         return message;
     }
 
+    /**
+     * Renders the data of this result.
+     *
+     * @return the data, or an empty string if there is none
+     */
     public String getData() {
-        return data;
+        if (data == null) {
+            return "";
+        }
+        String rendered = data.get();
+        return rendered != null ? rendered : "";
+    }
+
+    public KattyError getError() {
+        return error;
     }
 
+    /**
+     * Returns the exception behind this result, for display in dev mode.
+     *
+     * @return the unexpected exception if there was one, otherwise the
+     *     preallocated exception of the error code, or {@code null} on success
+     */
     public Exception getException() {
-        return exception;
+        if (cause != null) {
+            return cause;
+        }
+        return error != null ? error.getException() : null;
     }
 }
@@ -0,0 +1,165 @@
+package katty;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves Katty over a simple line protocol on a local port.
+ * <p>
+ * Each line a client sends is handled as one command, exactly as if it was typed into
+ * the CLI. The reply is written back as non-empty lines followed by a single empty line,
+ * so scripts can read replies without knowing their length. A client can switch its
+ * reply format with {@code format cat}, {@code format plain} or {@code format json},
+ * and {@code bye} closes the connection.
+ * </p>
+ * <p>
+ * Every connection is handled on its own thread: a virtual thread when the running JVM
+ * supports them, and a pooled platform thread otherwise.
+ * </p>
+ */
+public class KattyServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7878;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+
+    /**
+     * Binds a new {@code KattyServer} to the loopback interface.
+     *
+     * @param port the port to listen on, or 0 to pick any free port
+     * @throws IOException if the port could not be bound
+     */
+    public KattyServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        this.connections = newConnectionExecutor();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handle(socket));
+            } catch (SocketException e) {
+                // The server socket was closed while waiting for a connection.
+                break;
+            } catch (IOException e) {
+                System.err.println("Meow! A connection could not be accepted: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::serve, "katty-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void handle(Socket socket) {
+        Katty.ResponseFormat format = Katty.ResponseFormat.CAT;
+
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String input = line.strip();
+                if (input.isEmpty()) {
+                    continue;
+                }
+
+                String reply;
+                if (input.toLowerCase().startsWith("format ")) {
+                    try {
+                        format = Katty.ResponseFormat.valueOf(input.substring(7).strip().toUpperCase());
+                        reply = "Format set to " + format.name().toLowerCase() + ".";
+                    } catch (IllegalArgumentException e) {
+                        reply = "Format: format cat|plain|json";
+                    }
+                } else if (input.equalsIgnoreCase("bye")) {
+                    reply = "Goodbye...";
+                } else {
+                    reply = Katty.getResponse(input, format);
+                }
+
+                writeReply(out, reply);
+                if (input.equalsIgnoreCase("bye")) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // The client went away, nothing left to reply to.
+        }
+    }
+
+    private static void writeReply(BufferedWriter out, String reply) throws IOException {
+        for (String replyLine : reply.split("\n")) {
+            if (!replyLine.isBlank()) {
+                out.write(replyLine);
+                out.newLine();
+            }
+        }
+        out.newLine();
+        out.flush();
+    }
+
+    /**
+     * Creates a thread-per-task executor, preferring virtual threads when the JVM has them.
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "katty-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Loads the save file and serves Katty until the process is stopped.
+     *
+     * @param port the port to listen on
+     * @throws IOException if the port could not be bound
+     */
+    public static void run(int port) throws IOException {
+        System.out.println(Katty.getInitialGreeting());
+        Katty.startWatching();
+        try (KattyServer server = new KattyServer(port)) {
+            System.out.println(Katty.kattyMessage(new String[]{
+                "I'm listening on localhost:" + server.getPort() + "!", "",
+                "Send me one command per line."
+            }, Katty.KattyExpression.HAPPY));
+            server.serve();
+        }
+    }
+}
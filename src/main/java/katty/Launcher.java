@@ -1,12 +1,51 @@
 package katty;
 
+import java.io.IOException;
+
 import javafx.application.Application;
 
 /**
  * A launcher class to workaround classpath issues.
+ * <p>
+ * Starts the GUI by default. Run with {@code --server [port]} to serve Katty
+ * over a local socket instead, see {@link KattyServer}, or with {@code --cli} to chat
+ * on the console.
+ * <p>
+ * The console never loads a JavaFX class, so it starts faster, and faster still with the
+ * class data sharing archive built by {@code gradlew cliArchive}. JavaFX is only resolved
+ * once {@link Application#launch} is reached, so nothing may touch it before then.
  */
 public class Launcher {
-    public static void main(String[] args) {
+    private static final String SERVER_USAGE = "Usage: --server [port], with a port from 0 to 65535";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? parsePort(args[1]) : KattyServer.DEFAULT_PORT;
+            if (port < 0) {
+                System.err.println(SERVER_USAGE);
+                return;
+            }
+            KattyServer.run(port);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--cli")) {
+            Katty.kattyStart();
+            return;
+        }
         Application.launch(KattyGui.class, args);
     }
+
+    /**
+     * Reads a port number given on the command line.
+     *
+     * @return the port, or -1 if it is not a number from 0 to 65535
+     */
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text);
+            return port <= 0xFFFF ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,243 @@
+package katty;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import katty.task.RecurringTask;
+import katty.task.Task;
+
+/**
+ * Keeps the incomplete, dated tasks ordered by when they are due.
+ * <p>
+ * Tasks are kept in a balanced tree keyed on their due time, so adding, completing
+ * or deleting a task costs O(log n), and {@code upcoming} is read straight off the
+ * ordered tree. A single background thread sleeps until the next task is due and
+ * then passes a reminder to the notifier.
+ * </p>
+ * <p>
+ * A {@link RecurringTask} is kept in the tree once, keyed on its next pending occurrence
+ * that has not been reminded of yet. After each reminder it is moved on to the
+ * following occurrence, which is computed lazily from the task.
+ * </p>
+ * <p>
+ * Times are read from a {@link Clock}, the system clock unless one is given, and the
+ * thread runs until {@link #stop()} is called.
+ * </p>
+ */
+public class ReminderScheduler implements TaskListener {
+    private final TreeSet<Reminder> queue = new TreeSet<>();
+    private final Map<Task, Reminder> reminders = new IdentityHashMap<>();
+    private final Clock clock;
+    private long nextSequence = 0;
+    private LocalDateTime lastFired;
+    private Thread thread;
+
+    public ReminderScheduler() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a scheduler that tells the time by the given clock, so tests can move time on.
+     */
+    ReminderScheduler(Clock clock) {
+        this.clock = clock;
+        this.lastFired = LocalDateTime.now(clock);
+    }
+
+    /**
+     * Starts the scheduler thread.
+     * <p>
+     * Only tasks that fall due from now on are reminded of, overdue tasks are left to
+     * {@link katty.index.DateBucketIndex#overdue(LocalDateTime)}.
+     * </p>
+     *
+     * @param notifier receives each task as it falls due, on the scheduler thread
+     */
+    public synchronized void start(Consumer<Task> notifier) {
+        if (thread != null) {
+            return;
+        }
+        lastFired = LocalDateTime.now(clock);
+        thread = new Thread(() -> run(notifier), "katty-reminders");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the scheduler thread and waits for it to end, after any reminder it is passing on.
+     * <p>
+     * The scheduler keeps following the task list, and can be started again.
+     * </p>
+     */
+    public void stop() {
+        Thread stopping;
+        synchronized (this) {
+            stopping = thread;
+            thread = null;
+        }
+        if (stopping == null) {
+            return;
+        }
+        stopping.interrupt();
+        try {
+            stopping.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Consumer<Task> notifier) {
+        while (true) {
+            List<Task> due;
+            try {
+                due = awaitDue();
+            } catch (InterruptedException e) {
+                return;
+            }
+            due.forEach(notifier);
+        }
+    }
+
+    /**
+     * Sleeps until at least one task falls due and returns every task that did.
+     */
+    private synchronized List<Task> awaitDue() throws InterruptedException {
+        while (true) {
+            Reminder next = queue.higher(new Reminder(lastFired, Long.MAX_VALUE, null));
+            if (next == null) {
+                wait();
+                continue;
+            }
+
+            LocalDateTime now = LocalDateTime.now(clock);
+            if (next.time.isAfter(now)) {
+                wait(Math.max(1, ChronoUnit.MILLIS.between(now, next.time)));
+                continue;
+            }
+            return takeDue(now);
+        }
+    }
+
+    /**
+     * Returns every task that fell due since the last reminders up to now, earliest first,
+     * and moves recurring tasks on to their next occurrence.
+     *
+     * @param now the current time
+     * @return the tasks, which may be none
+     */
+    synchronized List<Task> takeDue(LocalDateTime now) {
+        List<Task> due = new ArrayList<>();
+        Reminder from = new Reminder(lastFired, Long.MAX_VALUE, null);
+        for (Reminder reminder : queue.subSet(from, false, new Reminder(now, Long.MAX_VALUE, null), true)) {
+            due.add(reminder.task);
+        }
+        lastFired = now;
+        for (Task task : due) {
+            if (task instanceof RecurringTask) {
+                unschedule(task);
+                schedule(task);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Returns the next tasks that are due.
+     *
+     * @param n the maximum number of tasks to return
+     * @return up to {@code n} tasks due from now on, earliest first
+     */
+    public synchronized List<Task> upcoming(int n) {
+        List<Task> upcoming = new ArrayList<>();
+        for (Reminder reminder : queue.tailSet(new Reminder(LocalDateTime.now(clock), Long.MAX_VALUE, null))) {
+            if (upcoming.size() == n) {
+                break;
+            }
+            upcoming.add(reminder.task);
+        }
+        return upcoming;
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        schedule(task);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        unschedule(task);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void taskUpdated(Task task) {
+        unschedule(task);
+        schedule(task);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void tasksReloaded(List<Task> tasks) {
+        queue.clear();
+        reminders.clear();
+        tasks.forEach(this::schedule);
+        notifyAll();
+    }
+
+    private void schedule(Task task) {
+        LocalDateTime due = getReminderTime(task);
+        if (task.isComplete() || due == null || due.equals(LocalDateTime.MIN)) {
+            return;
+        }
+        Reminder reminder = new Reminder(due, nextSequence++, task);
+        queue.add(reminder);
+        reminders.put(task, reminder);
+    }
+
+    /**
+     * Returns when to next remind the user of a task.
+     * <p>
+     * For a recurring task, this is the first pending occurrence that starts after the last reminder.
+     * </p>
+     */
+    private LocalDateTime getReminderTime(Task task) {
+        if (!(task instanceof RecurringTask recurringTask)) {
+            return task.getSortDate();
+        }
+        Iterator<RecurringTask.Occurrence> occurrences = recurringTask.occurrences(lastFired);
+        while (occurrences.hasNext()) {
+            RecurringTask.Occurrence occurrence = occurrences.next();
+            if (occurrence.start().isAfter(lastFired) && !recurringTask.isDone(occurrence)) {
+                return occurrence.start();
+            }
+        }
+        return null;
+    }
+
+    private void unschedule(Task task) {
+        Reminder reminder = reminders.remove(task);
+        if (reminder != null) {
+            queue.remove(reminder);
+        }
+    }
+
+    /**
+     * Represents a task in the queue, ordered by due time and then by when it was scheduled.
+     */
+    private record Reminder(LocalDateTime time, long sequence, Task task) implements Comparable<Reminder> {
+        @Override
+        public int compareTo(Reminder other) {
+            int byTime = time.compareTo(other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package katty;
+
+import java.util.List;
+
+import katty.task.Task;
+
+/**
+ * Gets notified by {@link TaskManager} whenever its task list changes.
+ * <p>
+ * This lets indexes and schedulers follow the task list incrementally
+ * instead of rescanning it on every command.
+ */
+public interface TaskListener {
+    void taskAdded(Task task);
+
+    void taskRemoved(Task task);
+
+    /**
+     * Called after the completion status of a task changed.
+     *
+     * @param task the task that changed
+     */
+    void taskUpdated(Task task);
+
+    /**
+     * Called after the whole task list was replaced, e.g. by loading the save file.
+     *
+     * @param tasks the new task list
+     */
+    void tasksReloaded(List<Task> tasks);
+}
@@ -0,0 +1,487 @@
+package katty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import katty.storage.BackupStore;
+import katty.storage.Settings;
+import katty.task.SortOrder;
+
+/**
+ * Keeps several named task lists, each in its own save file.
+ * <p>
+ * The {@value #DEFAULT_LIST} list keeps using {@code kattySave.txt}, every other list
+ * is a shard in the {@code kattyLists} folder. A shard is only loaded the first time it
+ * is used, and loaded shards other than the current one are dropped once they have been
+ * idle for a while or once more than {@value #MAX_LOADED} are loaded, least recently used
+ * first. Every change is saved as it happens, so dropping a shard loses nothing, and a
+ * dropped shard stops sharing changes with other Katty processes until it is loaded again.
+ * </p>
+ * <p>
+ * Listeners always follow the current list, and are given its tasks when it changes.
+ * The {@link UndoHistory} spans every list, so a move can be undone as a whole, and is
+ * kept in {@code kattyUndo.txt} so changes can still be undone after a restart. Every list
+ * is kept in the same {@link SortOrder}, which is saved in {@code kattySettings.properties}.
+ * Each list is backed up in a folder of its own in {@code kattyBackups}.
+ * </p>
+ */
+public class TaskLists {
+    public static final String DEFAULT_LIST = "main";
+    public static final int MAX_LOADED = 4;
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final String LISTS_FOLDER = "kattyLists";
+    private static final Pattern LIST_NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    private static final String SORT_SETTING = "sort";
+    private static final String BACKUPS_FOLDER = "kattyBackups";
+    private static final String SETTINGS_FILE = "kattySettings.properties";
+    private static final String UNDO_FILE = "kattyUndo.txt";
+    private static final DateTimeFormatter BACKUP_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm")
+            .withZone(ZoneId.systemDefault());
+
+    private final Map<String, Shard> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<TaskListener> listeners = new ArrayList<>();
+    private final Map<String, BackupStore> backups = new HashMap<>();
+    private final Path folder;
+    private final Path listsFolder;
+    private final Path backupsFolder;
+    private final UndoHistory history;
+    private final Settings settings;
+    private SortOrder sortOrder = SortOrder.BY_DATE;
+    private String currentName = DEFAULT_LIST;
+
+    public TaskLists() {
+        this(Path.of(""));
+    }
+
+    /**
+     * Creates the lists kept in a folder, in the sort order saved in its settings.
+     * <p>
+     * A saved order other than by date is ignored in memory-bounded mode.
+     * </p>
+     *
+     * @param folder the folder holding the save files, settings, undo history and backups
+     */
+    public TaskLists(Path folder) {
+        this.folder = folder;
+        this.listsFolder = folder.resolve(LISTS_FOLDER);
+        this.backupsFolder = folder.resolve(BACKUPS_FOLDER);
+        this.history = new UndoHistory(folder.resolve(UNDO_FILE));
+        this.settings = new Settings(folder.resolve(SETTINGS_FILE));
+        try {
+            SortOrder saved = SortOrder.parse(settings.get(SORT_SETTING, SortOrder.BY_DATE.toString()));
+            if (!TaskManager.isMemoryBounded()) {
+                sortOrder = saved;
+            }
+        } catch (KattyException e) {
+            // A hand-edited setting Katty cannot read leaves the lists by date
+        }
+        open(DEFAULT_LIST);
+    }
+
+    public TaskManager current() {
+        return loaded.get(currentName).manager;
+    }
+
+    public String getCurrentName() {
+        return currentName;
+    }
+
+    public UndoHistory getHistory() {
+        return history;
+    }
+
+    public SortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Sorts every list in a new order, and saves the order for the next time Katty starts.
+     *
+     * @param order the new order
+     * @return success of operation, which is partial if the order could not be saved
+     */
+    public KattyResult setSortOrder(SortOrder order) {
+        if (TaskManager.isMemoryBounded() && !order.isByDate()) {
+            return new KattyResult(false, "I can only keep tasks I'm reading bits of by date!", "",
+                    KattyError.MEMORY_BOUNDED);
+        }
+        sortOrder = order;
+        loaded.values().forEach(shard -> shard.manager.setSortOrder(order));
+        try {
+            settings.set(SORT_SETTING, order.toString());
+        } catch (IOException e) {
+            return new KattyResult(true, "Sorted by " + order + ", for now!", "", KattyError.FAIL_TO_SAVE);
+        }
+        return new KattyResult(true, "Sorted by " + order + "!", "", null);
+    }
+
+    /**
+     * Registers a listener to be notified of every change to the current list.
+     *
+     * @param listener the listener, which is immediately given the current task list
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+        current().addListener(listener);
+    }
+
+    /**
+     * Makes a list the current one, loading it if it is not loaded yet.
+     *
+     * @param name the name of the list, which is created if it does not exist
+     * @return the result of loading the list, or a success if it was already loaded
+     */
+    public KattyResult use(String name) {
+        if (!LIST_NAME.matcher(name).matches()) {
+            return new KattyResult(false, "That's a strange name for a list!", "", KattyError.INVALID_LIST_NAME);
+        }
+        Shard shard = open(name);
+        KattyResult result = shard.load();
+
+        if (!name.equals(currentName)) {
+            TaskManager previous = current();
+            listeners.forEach(previous::removeListener);
+            listeners.forEach(shard.manager::addListener);
+            currentName = name;
+        }
+        evictIdle();
+        return result != null ? result : new KattyResult(true, "Switched lists!", "", null);
+    }
+
+    /**
+     * Moves a task from the current list into another list, loading it if needed.
+     *
+     * @param i      index of the task in the current list
+     * @param target the name of the list to move it to
+     * @return success of operation, with the moved task as data
+     */
+    public KattyResult move(int i, String target) {
+        if (!LIST_NAME.matcher(target).matches()) {
+            return new KattyResult(false, "That's a strange name for a list!", "", KattyError.INVALID_LIST_NAME);
+        }
+        if (target.equals(currentName)) {
+            return new KattyResult(false, "It's already in that list!", "", KattyError.INVALID_LIST_NAME);
+        }
+        TaskManager source = current();
+        Shard shard = open(target);
+        shard.load();
+        KattyResult result = source.moveTask(i, shard.manager);
+        evictIdle();
+        return result;
+    }
+
+    /**
+     * Undoes the last change recorded in the history, in whichever lists it was made.
+     *
+     * @return what was undone, or an error if nothing is left to undo
+     */
+    public KattyResult undo() {
+        UndoHistory.Change change = history.takeUndo();
+        if (change == null) {
+            return new KattyResult(false, "There's nothing to undo!", "", KattyError.NOTHING_TO_UNDO);
+        }
+        List<String> summaries = new ArrayList<>();
+        for (int i = change.steps().size() - 1; i >= 0; i--) {
+            UndoHistory.Step step = change.steps().get(i);
+            summaries.add(apply(step.list(), UndoHistory.invert(step.records())));
+        }
+        return new KattyResult(true, "I've undone: " + change.command(), String.join("\n", summaries), null);
+    }
+
+    /**
+     * Redoes the last change that was undone, unless a new change was made since.
+     *
+     * @return what was redone, or an error if nothing is left to redo
+     */
+    public KattyResult redo() {
+        UndoHistory.Change change = history.takeRedo();
+        if (change == null) {
+            return new KattyResult(false, "There's nothing to redo!", "", KattyError.NOTHING_TO_REDO);
+        }
+        List<String> summaries = new ArrayList<>();
+        for (UndoHistory.Step step : change.steps()) {
+            summaries.add(apply(step.list(), step.records()));
+        }
+        return new KattyResult(true, "I've redone: " + change.command(), String.join("\n", summaries), null);
+    }
+
+    /**
+     * Applies records to a list, loading it if needed.
+     *
+     * @return a summary of what changed in the list
+     */
+    private String apply(String name, List<String> records) {
+        Shard shard = open(name);
+        shard.load();
+        KattyResult result = shard.manager.applyChanges(records);
+        evictIdle();
+        return name + ": " + (result.isSuccess() ? result.getData() : result.getError().getMessage());
+    }
+
+    /**
+     * Backs up the current list as it is now, writing the backup in the background.
+     *
+     * @param done given the version once it is written, or the failure, on the backup thread
+     * @return whether the backup was started
+     */
+    public KattyResult backup(Consumer<KattyResult> done) {
+        if (TaskManager.isMemoryBounded()) {
+            return new KattyResult(false, "I can't back up a list I'm reading bits of!", "",
+                    KattyError.MEMORY_BOUNDED);
+        }
+        String name = currentName;
+        try {
+            backupsOf(name).backup(current().snapshot()).whenComplete((version, e) -> done.accept(e == null
+                    ? new KattyResult(true, "I've backed up " + name + " as version " + version.number() + "!",
+                            "Try: restore " + version.number(), null)
+                    : new KattyResult(false, "I couldn't back up " + name + "!", "", KattyError.FAIL_TO_BACKUP)));
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't read the earlier backups!", "", KattyError.FAIL_TO_BACKUP);
+        }
+        return new KattyResult(true, "Backing up " + name + "!", "", null);
+    }
+
+    /**
+     * Lists the backups of the current list.
+     *
+     * @return one line per version, newest last, or an error if there are none
+     */
+    public KattyResult listBackups() {
+        BackupStore store = backupsOf(currentName);
+        List<BackupStore.Version> versions;
+        try {
+            versions = store.getVersions();
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't read the backups!", "", KattyError.FAIL_TO_BACKUP);
+        }
+        int pending = store.getPending();
+        if (versions.isEmpty() && pending == 0) {
+            return new KattyResult(false, "There are no backups of " + currentName + " yet!", "",
+                    KattyError.NO_BACKUPS);
+        }
+        List<String> lines = new ArrayList<>();
+        for (BackupStore.Version version : versions) {
+            lines.add(String.format("%d. %s, %d task%s (%s)", version.number(), BACKUP_TIME.format(version.time()),
+                    version.tasks(), version.tasks() == 1 ? "" : "s",
+                    version.depth() == 0 ? "stored whole" : "stored as changes"));
+        }
+        if (pending > 0) {
+            lines.add(String.format("%d more still being written", pending));
+        }
+        return new KattyResult(true, "Here are the backups of " + currentName + "!", String.join("\n", lines), null);
+    }
+
+    /**
+     * Makes the current list match one of its backups, as a change that can be undone.
+     *
+     * @param number the version number
+     * @return how many tasks were added and removed, or an error if there is no such version
+     */
+    public KattyResult restore(int number) {
+        if (TaskManager.isMemoryBounded()) {
+            return new KattyResult(false, "I can't swap out a file I'm reading bits of!", "",
+                    KattyError.MEMORY_BOUNDED);
+        }
+        List<String> lines;
+        try {
+            lines = backupsOf(currentName).restore(number);
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't read that backup!", "", KattyError.FAIL_TO_BACKUP);
+        }
+        if (lines == null) {
+            return new KattyResult(false, "There's no backup with that number!", "", KattyError.NO_SUCH_BACKUP);
+        }
+        KattyResult result = current().restoreLines(lines);
+        return result.isSuccess()
+                ? new KattyResult(true, "I've restored version " + number + " of " + currentName + "!",
+                        result.getData(), null)
+                : result;
+    }
+
+    /**
+     * Waits for the backups still being written, and lets go of the files of every loaded list.
+     * <p>
+     * Called as Katty exits, since backups are written on threads that do not keep it running.
+     * Backups can still be listed and restored afterwards, but not started.
+     * </p>
+     */
+    public void close() {
+        backups.values().forEach(BackupStore::close);
+        loaded.values().forEach(shard -> shard.manager.close());
+    }
+
+    private BackupStore backupsOf(String name) {
+        return backups.computeIfAbsent(name, n -> new BackupStore(backupsFolder.resolve(n)));
+    }
+
+    /**
+     * Returns the names of every list, whether it is loaded or only saved.
+     *
+     * @return the names in alphabetical order
+     */
+    public List<String> getNames() {
+        TreeSet<String> names = new TreeSet<>(loaded.keySet());
+        names.add(DEFAULT_LIST);
+        if (Files.isDirectory(listsFolder)) {
+            try (Stream<Path> files = Files.list(listsFolder)) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(file -> file.endsWith(".txt"))
+                        .map(file -> file.substring(0, file.length() - ".txt".length()))
+                        .filter(name -> LIST_NAME.matcher(name).matches())
+                        .forEach(names::add);
+            } catch (IOException e) {
+                // Only the loaded lists can be named then
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Describes every list, marking the current one and showing how many tasks the loaded ones hold.
+     *
+     * @return one line per list
+     */
+    public String describe() {
+        return getNames().stream()
+                .map(name -> {
+                    Shard shard = loaded.get(name);
+                    String marker = name.equals(currentName) ? "* " : "  ";
+                    return shard != null && shard.isLoaded
+                            ? String.format("%s%s (%d task%s)", marker, name, shard.manager.size(),
+                                    shard.manager.size() == 1 ? "" : "s")
+                            : marker + name;
+                })
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Searches every list for tasks whose names contain a keyword.
+     * <p>
+     * Lists are searched in parallel. Unloaded lists are read from their save files
+     * for the search only, so they do not push the lists in use out of memory, and
+     * with {@link TaskManager#readFile()}, so searching never writes to them.
+     * </p>
+     *
+     * @param keyword the keyword to search for
+     * @return the matches grouped under the name of their list, or an error if none found
+     */
+    public KattyResult findEverywhere(String keyword) {
+        List<String> names = getNames();
+        Map<String, Shard> snapshot = new LinkedHashMap<>(loaded);
+        List<String> groups = names.parallelStream()
+                .map(name -> {
+                    Shard shard = snapshot.get(name);
+                    boolean isTemporary = shard == null || !shard.isLoaded;
+                    TaskManager manager = isTemporary ? newManager(name) : shard.manager;
+                    if (isTemporary) {
+                        manager.readFile();
+                    }
+                    KattyResult result = manager.findTasksByName(keyword);
+                    if (isTemporary) {
+                        manager.close();
+                    }
+                    return result.isSuccess() ? "[" + name + "]\n" + result.getData() : null;
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (groups.isEmpty()) {
+            return new KattyResult(false, "I couldn't find anything in any list!",
+                    "Try a different keyword?", KattyError.SEARCH_RESULT_EMPTY);
+        }
+        return new KattyResult(true, "I found these matches!", String.join("\n", groups), null);
+    }
+
+    private Shard open(String name) {
+        Shard shard = loaded.get(name);
+        if (shard == null) {
+            TaskManager manager = newManager(name);
+            manager.setRecorder(records -> history.record(name, records));
+            shard = new Shard(manager);
+            loaded.put(name, shard);
+        }
+        shard.lastUsed = System.nanoTime();
+        return shard;
+    }
+
+    private TaskManager newManager(String name) {
+        TaskManager manager;
+        if (name.equals(DEFAULT_LIST)) {
+            manager = new TaskManager(folder.resolve(TaskManager.SAVE_FILE),
+                    folder.resolve(TaskManager.ARCHIVE_FILE));
+        } else {
+            try {
+                Files.createDirectories(listsFolder);
+            } catch (IOException e) {
+                // Saving will report the failure
+            }
+            manager = new TaskManager(listsFolder.resolve(name + ".txt"),
+                    listsFolder.resolve(name + ".archive.gz"));
+        }
+        manager.setSortOrder(sortOrder);
+        return manager;
+    }
+
+    /**
+     * Drops loaded lists, other than the current one, that have been idle too long
+     * or are the least recently used beyond {@value #MAX_LOADED}.
+     */
+    private void evictIdle() {
+        long now = System.nanoTime();
+        int excess = loaded.size() - MAX_LOADED;
+        Iterator<Map.Entry<String, Shard>> eldestFirst = loaded.entrySet().iterator();
+        while (eldestFirst.hasNext()) {
+            Map.Entry<String, Shard> entry = eldestFirst.next();
+            if (entry.getKey().equals(currentName)) {
+                continue;
+            }
+            if (excess > 0 || now - entry.getValue().lastUsed > IDLE_TIMEOUT.toNanos()) {
+                entry.getValue().manager.close();
+                eldestFirst.remove();
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * Holds a task list and when it was last used.
+     */
+    private static class Shard {
+        private final TaskManager manager;
+        private boolean isLoaded = false;
+        private long lastUsed = System.nanoTime();
+
+        private Shard(TaskManager manager) {
+            this.manager = manager;
+        }
+
+        /**
+         * Loads the save file the first time it is called.
+         *
+         * @return the result of loading, or {@code null} if it was loaded already
+         */
+        private KattyResult load() {
+            if (isLoaded) {
+                return null;
+            }
+            isLoaded = true;
+            return manager.loadFile();
+        }
+    }
+}
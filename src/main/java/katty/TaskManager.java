@@ -1,11 +1,48 @@
 package katty;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import katty.index.DuplicateIndex;
+import katty.storage.ArchiveStore;
+import katty.storage.ChangeLog;
+import katty.storage.LazyTaskList;
+import katty.storage.TaskCache;
+import katty.storage.TaskTransfer;
+import katty.task.SortOrder;
 import katty.task.Task;
 import katty.task.TaskParser;
 
@@ -16,28 +53,155 @@ import katty.task.TaskParser;
  * deletion or modification of tasks for the user.</p>
  */
 public class TaskManager {
+    public static final int ARCHIVE_AFTER_DAYS = 30;
+    static final String SAVE_FILE = "kattySave.txt";
+    static final String ARCHIVE_FILE = "kattyArchive.gz";
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final String TRAILER = "# katty-log ";
+    private static final long HEAP_BUDGET = TaskCache.parseBudget(System.getProperty("katty.heapBudget"));
+    private static final TaskCache CACHE = HEAP_BUDGET > 0 ? new TaskCache(HEAP_BUDGET) : null;
     private List<Task> tasks;
+    private final Path savePath;
+    private final ArchiveStore archive;
+    private final List<TaskListener> listeners = new ArrayList<>();
+    private final DuplicateIndex duplicates = new DuplicateIndex(() -> tasks);
+    private boolean isCompressed = Boolean.getBoolean("katty.compress");
+    private Map<Task, SyncedLine> synced = new IdentityHashMap<>();
+    private FileTime syncedModified;
+    private long syncedSize = -1;
+    private KattyResult unreportedMerge;
+    private ChangeLog changeLog;
+    private long logOffset;
+    private Consumer<List<String>> recorder = records -> { };
+    private SortOrder sortOrder = SortOrder.BY_DATE;
+    private boolean isArchiveDue = false;
+    private List<String> unreadLines = List.of();
 
     public TaskManager() {
+        this(Path.of(SAVE_FILE), Path.of(ARCHIVE_FILE));
+    }
+
+    /**
+     * Creates a {@code TaskManager} that keeps its tasks in the given files.
+     *
+     * @param savePath    the save file, plain or GZIP-compressed
+     * @param archivePath the archive of old completed tasks
+     */
+    public TaskManager(Path savePath, Path archivePath) {
         this.tasks = new ArrayList<>();
+        this.savePath = savePath;
+        this.archive = new ArchiveStore(archivePath);
+        this.listeners.add(duplicates);
+    }
+
+    /**
+     * Registers a listener to be notified of every change to the task list.
+     *
+     * @param listener the listener, which is immediately given the current task list
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+        listener.tasksReloaded(tasks);
+    }
+
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets where the changes the user makes are recorded, so they can be undone.
+     * <p>
+     * Changes picked up from elsewhere are not recorded, and neither is archiving,
+     * which has {@link #unarchive(int)} to take it back.
+     * </p>
+     *
+     * @param recorder receives the {@link ChangeLog} records of each change
+     */
+    public void setRecorder(Consumer<List<String>> recorder) {
+        this.recorder = recorder;
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Changes the order the task list is kept in, and sorts it again.
+     * <p>
+     * Task numbers follow this order. In memory-bounded mode tasks read on demand are
+     * always kept by date, since their index only knows their dates.
+     * </p>
+     *
+     * @param sortOrder the new order
+     */
+    public void setSortOrder(SortOrder sortOrder) {
+        this.sortOrder = sortOrder;
+        sortTasks();
+    }
+
+    public SortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    public Path getSavePath() {
+        return savePath;
+    }
+
+    /**
+     * Returns the change log shared with other Katty processes using the same save file.
+     *
+     * @return the log file, or {@code null} if it is not open
+     */
+    public Path getLogPath() {
+        return changeLog == null ? null : changeLog.getFile();
+    }
+
+    /**
+     * Tells whether Katty runs in memory-bounded mode, set by the {@code katty.heapBudget} system property.
+     * <p>
+     * Plain text save files are then loaded as a {@link LazyTaskList}, which reads tasks
+     * on demand into a {@link TaskCache} of that size, e.g. {@code -Dkatty.heapBudget=64m}.
+     * In this mode the file is not shared through a change log, and changes made to it
+     * elsewhere are reloaded as a whole instead of merged.
+     * </p>
+     */
+    public static boolean isMemoryBounded() {
+        return CACHE != null;
+    }
+
+    /**
+     * Returns the cache of tasks shared by every list in memory-bounded mode.
+     *
+     * @return the cache, or {@code null} if every task is kept in memory
+     */
+    public static TaskCache getCache() {
+        return CACHE;
     }
 
     /**
      * Parses user command and input for generating the corresponding task.
+     * <p>
+     * A task with the same type, name and dates as one already in the list is rejected,
+     * see {@link DuplicateIndex}.
+     * </p>
      *
      * @param command type of task
      * @param input   task details
      * @return success of operation
      */
     public KattyResult parser(String command, String input) {
+        reloadIfStale();
         try {
             Task t = TaskParser.parser(command, input);
-            tasks.add(t);
-            tasks.sort(Comparator.comparing(Task::getSortDate));
-            saveFile();
-            return new KattyResult(true, "Got it! This is what's up...", t.toString(), null);
+            if (duplicates.contains(t)) {
+                return new KattyResult(false, "I already have that task!", "", KattyError.DUPLICATE_TASK);
+            }
+            addSorted(t);
+            listeners.forEach(l -> l.taskAdded(t));
+            saveChanges(List.of(added(t)));
+            return new KattyResult(true, "Got it! This is what's up...", t::toString, null);
         } catch (KattyException e) {
-            return new KattyResult(false, "I couldn't add that task!", "", e);
+            return new KattyResult(false, "I couldn't add that task!", "", e.getError());
         }
     }
 
@@ -48,19 +212,24 @@ public class TaskManager {
      * @return success of operation
      */
     public KattyResult markDone(int i) {
-        i = i - 1;
-        try {
-            boolean success = tasks.get(i).markComplete();
-            if (success) {
-                saveFile();
-                return new KattyResult(success, "I've marked it as complete! Nice work!",
-                        tasks.get(i).toString(), null);
-            } else {
-                return new KattyResult(success, "Task is already completed!",
-                        tasks.get(i).toString(), KattyException.invalidCompletion());
-            }
-        } catch (IndexOutOfBoundsException e) {
-            return new KattyResult(false, "That task doesn't exist!", null, KattyException.noTaskFound());
+        reloadIfStale();
+        if (!isValidIndex(i)) {
+            return new KattyResult(false, "That task doesn't exist!", "", KattyError.NO_TASK_FOUND);
+        }
+        Task task = tasks.get(i - 1);
+        LocalDateTime sortDate = task.getSortDate();
+        String before = task.toFileString();
+        boolean success = task.markComplete();
+        if (success) {
+            tasks.set(i - 1, task);
+            resortIfMoved(i - 1, task, sortDate);
+            listeners.forEach(l -> l.taskUpdated(task));
+            saveChanges(List.of(removed(before), replaced(task)));
+            return new KattyResult(success, "I've marked it as complete! Nice work!",
+                    task::toString, null);
+        } else {
+            return new KattyResult(success, "Task is already completed!",
+                    task::toString, KattyError.INVALID_COMPLETION);
         }
     }
 
@@ -71,20 +240,27 @@ public class TaskManager {
      * @return success of operation
      */
     public KattyResult markIncomplete(int i) {
-        i = i - 1;
-        try {
-            boolean success = tasks.get(i).markIncomplete();
-            saveFile();
-            if (success) {
-                return new KattyResult(success,
-                        "I've marked it as incomplete. Let's hope it doesn't stay that way for long...",
-                        tasks.get(i).toString(), null);
-            } else {
-                return new KattyResult(success, "Task was never completed!",
-                        tasks.get(i).toString(), KattyException.invalidCompletion());
-            }
-        } catch (IndexOutOfBoundsException e) {
-            return new KattyResult(false, "That task doesn't exist!", null, KattyException.noTaskFound());
+        reloadIfStale();
+        if (!isValidIndex(i)) {
+            return new KattyResult(false, "That task doesn't exist!", "", KattyError.NO_TASK_FOUND);
+        }
+        Task task = tasks.get(i - 1);
+        LocalDateTime sortDate = task.getSortDate();
+        String before = task.toFileString();
+        boolean success = task.markIncomplete();
+        if (success) {
+            tasks.set(i - 1, task);
+            resortIfMoved(i - 1, task, sortDate);
+            listeners.forEach(l -> l.taskUpdated(task));
+            saveChanges(List.of(removed(before), replaced(task)));
+        }
+        if (success) {
+            return new KattyResult(success,
+                    "I've marked it as incomplete. Let's hope it doesn't stay that way for long...",
+                    task::toString, null);
+        } else {
+            return new KattyResult(success, "Task was never completed!",
+                    task::toString, KattyError.INVALID_COMPLETION);
         }
     }
 
@@ -95,17 +271,115 @@ public class TaskManager {
      * @return success of operation
      */
     public KattyResult deleteTask(int i) {
-        i = i - 1;
-        try {
-            Task task = tasks.remove(i);
-            saveFile();
-            return new KattyResult(true, "", task.toString(), null);
-        } catch (IndexOutOfBoundsException e) {
-            return new KattyResult(false, "That task doesn't exist!", null, KattyException.noTaskFound());
+        reloadIfStale();
+        if (!isValidIndex(i)) {
+            return new KattyResult(false, "That task doesn't exist!", "", KattyError.NO_TASK_FOUND);
         }
+        Task task = tasks.remove(i - 1);
+        listeners.forEach(l -> l.taskRemoved(task));
+        saveChanges(List.of(position(i), removed(task.toFileString())));
+        return new KattyResult(true, "", task::toString, null);
+    }
+
+    /**
+     * Moves a task from this task list into another one.
+     * <p>
+     * The task is saved into the other list before it is removed from this one,
+     * so a failed save can leave a copy behind but never lose the task.
+     * </p>
+     *
+     * @param i      index of task in this list
+     * @param target the task list to move it to
+     * @return success of operation, with the moved task as data
+     */
+    public KattyResult moveTask(int i, TaskManager target) {
+        reloadIfStale();
+        target.reloadIfStale();
+        if (!isValidIndex(i)) {
+            return new KattyResult(false, "That task doesn't exist!", "", KattyError.NO_TASK_FOUND);
+        }
+        Task task = tasks.get(i - 1);
+        target.addSorted(task);
+        target.listeners.forEach(l -> l.taskAdded(task));
+        target.saveChanges(List.of(added(task)));
+
+        tasks.remove(i - 1);
+        listeners.forEach(l -> l.taskRemoved(task));
+        saveChanges(List.of(position(i), removed(task.toFileString())));
+        return new KattyResult(true, "", task::toString, null);
+    }
+
+    /**
+     * Adds a task where the sort order wants it, after the tasks it ties with, as adding it
+     * to the end and sorting the whole list again would.
+     */
+    private void addSorted(Task task) {
+        if (tasks instanceof LazyTaskList) {
+            tasks.add(task);
+            sortTasks();
+            return;
+        }
+        tasks.add(sortOrder.insertionPoint(tasks, task, 0, tasks.size(), true), task);
+    }
+
+    /**
+     * Moves a task that was changed in place to where the sort order now wants it, such as a
+     * {@link katty.task.RecurringTask} whose date moved on once marked, or any marked task
+     * in a list sorted by status.
+     * <p>
+     * The rest of the list is still sorted, so the task is only moved if it is now out of
+     * order with a neighbour, and then only compared with the tasks on that side. It keeps
+     * its place among the tasks it ties with, as sorting the whole list again would.
+     * </p>
+     *
+     * @param i           the position of the task
+     * @param task        the task
+     * @param oldSortDate its date before it changed
+     */
+    private void resortIfMoved(int i, Task task, LocalDateTime oldSortDate) {
+        if (tasks instanceof LazyTaskList) {
+            if (!task.getSortDate().equals(oldSortDate)) {
+                sortTasks();
+            }
+            return;
+        }
+        if (i > 0 && sortOrder.compare(task, tasks.get(i - 1)) < 0) {
+            tasks.remove(i);
+            tasks.add(sortOrder.insertionPoint(tasks, task, 0, i - 1, false), task);
+        } else if (i < tasks.size() - 1 && sortOrder.compare(task, tasks.get(i + 1)) > 0) {
+            tasks.remove(i);
+            tasks.add(sortOrder.insertionPoint(tasks, task, i, tasks.size(), true), task);
+        }
+    }
+
+    private void removeAt(BitSet positions) {
+        if (tasks instanceof LazyTaskList lazy) {
+            lazy.removeAt(positions);
+            return;
+        }
+        List<Task> kept = new ArrayList<>(tasks.size() - positions.cardinality());
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!positions.get(i)) {
+                kept.add(tasks.get(i));
+            }
+        }
+        tasks = kept;
+    }
+
+    private void sortTasks() {
+        if (tasks instanceof LazyTaskList lazy) {
+            lazy.sortByDate();
+        } else {
+            sortOrder.sort(tasks);
+        }
+    }
+
+    private boolean isValidIndex(int i) {
+        return i >= 1 && i <= tasks.size();
     }
 
     public String getFormattedTaskList() {
+        reloadIfStale();
         if (tasks.isEmpty()) {
             return "";
         }
@@ -116,13 +390,48 @@ public class TaskManager {
         return String.join("\n", taskStringFormat);
     }
 
+    /**
+     * Formats some of the tasks, numbered by their position in the task list.
+     *
+     * @param selected tasks that are in the task list
+     * @return the numbered tasks, one per line, in the order given
+     */
+    public String getFormattedTasks(List<Task> selected) {
+        reloadIfStale();
+        // Tasks read on demand may have been read again since, so they are matched by value
+        Function<Task, Object> keyOf = tasks instanceof LazyTaskList ? Task::toFileString : t -> t;
+        Map<Object, Integer> positions = tasks instanceof LazyTaskList ? new HashMap<>() : new IdentityHashMap<>();
+        selected.forEach(t -> positions.put(keyOf.apply(t), -1));
+        for (int i = 0; i < tasks.size(); i++) {
+            positions.replace(keyOf.apply(tasks.get(i)), -1, i + 1);
+        }
+        return selected.stream()
+                .map(t -> String.format("%d. %s", positions.get(keyOf.apply(t)), t.toString()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Numbers every task by its position in the task list, as {@code list} shows it.
+     *
+     * @return the number of each task, or nothing in memory-bounded mode, where tasks are read again on demand
+     */
+    public Map<Task, Integer> numberTasks() {
+        Map<Task, Integer> numbers = new IdentityHashMap<>(tasks.size());
+        if (!(tasks instanceof LazyTaskList)) {
+            for (int i = 0; i < tasks.size(); i++) {
+                numbers.put(tasks.get(i), i + 1);
+            }
+        }
+        return numbers;
+    }
+
     public String getListByName() {
+        reloadIfStale();
         if (tasks.isEmpty()) {
             return "";
         }
-        List<Task> sortedByName = tasks.stream()
-                .sorted(Comparator.comparing(Task::getTaskName, String.CASE_INSENSITIVE_ORDER))
-                .toList();
+        List<Task> sortedByName = new ArrayList<>(tasks);
+        SortOrder.BY_NAME.sort(sortedByName);
 
         List<String> taskStringFormat = IntStream.range(0, sortedByName.size())
                 .mapToObj(i -> String.format("%d. %s", i + 1, sortedByName.get(i).toString()))
@@ -131,96 +440,1326 @@ public class TaskManager {
         return String.join("\n", taskStringFormat);
     }
 
+    public boolean isCompressed() {
+        return isCompressed;
+    }
+
+    /**
+     * Switches the save file between plain text and GZIP, and rewrites it in the new format.
+     *
+     * @param isCompressed {@code true} to compress the save file
+     * @return the result of rewriting the save file
+     */
+    public KattyResult setCompressed(boolean isCompressed) {
+        if (isCompressed && tasks instanceof LazyTaskList) {
+            return new KattyResult(false, "I can't squish a file I'm reading bits of!", "",
+                    KattyError.MEMORY_BOUNDED);
+        }
+        this.isCompressed = isCompressed;
+        return saveFile();
+    }
+
     /**
      * Saves serialized state of tasks {@code TaskManager} in a file.
+     * <p>
+     * Lines are streamed through a GZIP encoder when compression is on, so the
+     * file is never held in memory as a whole. If the file was changed by someone else
+     * since Katty last read or wrote it, those changes are merged in first rather than
+     * overwritten.
+     * </p>
+     * <p>
+     * While the change log is open, the tasks are written to a temporary file next to the
+     * save file, which then replaces it only if no other Katty process logged a change that
+     * this one has not applied yet. That process saves the file itself then.
+     * </p>
      *
-     * @return success of operation
+     * @return success of operation, or the conflict found while merging outside changes
      */
     public KattyResult saveFile() {
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter("kattySave.txt"))) {
-            for (Task t : tasks) {
-                writer.println(t.toFileString());
+        if (tasks instanceof LazyTaskList lazy) {
+            return saveLazily(lazy);
+        }
+        KattyResult merged = isChangedOnDisk() ? mergeChanges() : syncLog();
+        try {
+            if (changeLog == null) {
+                markSynced(writeTasks(savePath, -1, 0));
+            } else {
+                writeSnapshot();
             }
+        } catch (IOException e) {
+            return new KattyResult(false, "Save file could not be made!", "", KattyError.FAIL_TO_SAVE);
+        }
+        if (merged.getError() != null) {
+            unreportedMerge = merged;
+            return merged;
+        }
+        return new KattyResult(true, isCompressed ? "Saved to compressed file!" : "Saved to text file!",
+                "", null);
+    }
+
+    /**
+     * Reloads a task list that is only partly in memory if its save file changed since, which would
+     * leave it reading tasks from the wrong places in the file. A fully loaded list is left as it is.
+     */
+    private void reloadIfStale() {
+        if (tasks instanceof LazyTaskList && isChangedOnDisk()) {
+            loadFile();
+        }
+    }
+
+    /**
+     * Saves a task list that is only partly in memory.
+     * <p>
+     * Unchanged tasks are copied from the save file by where they were found in it, so if the
+     * file changed in the short time since the command checked it, the file is reloaded instead
+     * of being saved, and the change is lost and reported.
+     * </p>
+     */
+    private KattyResult saveLazily(LazyTaskList lazy) {
+        if (isChangedOnDisk()) {
+            loadFile();
+            unreportedMerge = new KattyResult(false,
+                    "Your save file changed while I was saving, so I reloaded it instead!",
+                    "Please try that again.", KattyError.SAVE_CONFLICT);
+            return unreportedMerge;
+        }
+        Path temp = null;
+        try {
+            temp = createTempFile();
+            lazy.save(temp, unreadLines);
+            markSynced(new IdentityHashMap<>());
             return new KattyResult(true, "Saved to text file!", "", null);
         } catch (IOException e) {
-            return new KattyResult(false, "Save file could not be made!", "", KattyException.failToSave());
+            return new KattyResult(false, "Save file could not be made!", "", KattyError.FAIL_TO_SAVE);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Only a stray temporary file is left
+                }
+            }
         }
     }
 
     /**
-     * Loads the state of tasks into the {@code TaskManager} from the local save file.
+     * Records changes to be undone and logs them for other Katty processes using the same
+     * save file, then saves the task list.
+     *
+     * @param records the changes, as described in {@link ChangeLog}
+     * @return success of operation
+     */
+    private KattyResult saveChanges(List<String> records) {
+        recorder.accept(records);
+        List<String> archived = archiveIfDue();
+        if (archived.isEmpty()) {
+            return saveUnrecorded(records);
+        }
+        List<String> all = new ArrayList<>(records);
+        all.addAll(archived);
+        return saveUnrecorded(all);
+    }
+
+    /**
+     * Moves old completed tasks to the archive if the list was loaded since this last ran.
      * <p>
-     * This method attempts to read {@code kattySave.txt}. It processes the file line-by-line,
-     * utilizing {@link TaskParser#fromFileString(String)} to reconstruct task objects.
-     * If a line is malformed or corrupted, it is skipped to ensure maximum data recovery,
-     * and a flag is set to notify the user of the partial load.
+     * This runs with the first change saved after loading rather than while loading,
+     * so loading alone never rewrites the save file.
      * </p>
      *
-     * @return A {@link KattyResult} indicating if the load was successful, partially
-     *      successful (with corruption), or failed entirely.
+     * @return the records of the tasks archived, to be saved with the change
      */
-    public KattyResult loadFile() {
-        java.io.File file = new java.io.File("kattySave.txt");
-        if (!file.exists()) {
-            return new KattyResult(false, "No save file found!", "", KattyException.noSaveFile());
+    private List<String> archiveIfDue() {
+        if (!isArchiveDue) {
+            return List.of();
+        }
+        isArchiveDue = false;
+        try {
+            return moveToArchive(ARCHIVE_AFTER_DAYS);
+        } catch (IOException e) {
+            return List.of(); // Tried again the next time the list is loaded
         }
+    }
 
-        try (java.util.Scanner sc = new java.util.Scanner(file)) {
-            tasks = new ArrayList<>();
-            boolean hasCorruption = false;
+    /**
+     * Logs changes like {@link #saveChanges(List)} without recording them to be undone.
+     */
+    private KattyResult saveUnrecorded(List<String> records) {
+        List<String> logged = records.stream().filter(r -> r.charAt(0) != UndoHistory.POSITION).toList();
+        if (changeLog != null && !logged.isEmpty()) {
+            try {
+                changeLog.append(logged);
+            } catch (IOException e) {
+                return new KattyResult(false, "Save file could not be made!", "", KattyError.FAIL_TO_SAVE);
+            }
+        }
+        return saveFile();
+    }
 
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) {
-                    continue;
-                }
+    private static String added(Task task) {
+        return ChangeLog.ADDED + task.toFileString();
+    }
 
-                try {
-                    Task t = TaskParser.fromFileString(line);
-                    if (t != null) {
-                        tasks.add(t);
-                    }
-                } catch (Exception e) {
-                    hasCorruption = true;
-                }
-            }
+    private static String removed(String line) {
+        return ChangeLog.REMOVED + line;
+    }
 
-            tasks.sort(Comparator.comparing(Task::getSortDate));
+    /**
+     * Notes the task number of the record after it, for undoing, see {@link UndoHistory}.
+     */
+    private static String position(int i) {
+        return UndoHistory.POSITION + Integer.toString(i);
+    }
 
-            if (hasCorruption) {
-                return new KattyResult(true,
-                        "Meow! I recovered your tasks, but some corrupted lines were skipped.",
-                        getFormattedTaskList(), KattyException.partialLoadSaveFile());
+    private static String replaced(Task task) {
+        return ChangeLog.REPLACED + task.toFileString();
+    }
+
+    /**
+     * Writes every task to a file, followed by a trailer saying how much of the change log the file includes.
+     * <p>
+     * Lines of the save file that could not be read are written after the tasks as they were,
+     * so they are not lost before they are fixed by hand.
+     * </p>
+     *
+     * @param generation the generation of the change log, or a negative number to leave out the trailer
+     * @param offset     the end of the change log that the file includes
+     * @return the line each task was written as
+     */
+    private Map<Task, SyncedLine> writeTasks(Path file, long generation, long offset) throws IOException {
+        Map<Task, SyncedLine> written = new IdentityHashMap<>();
+        long bodyHash = 0;
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(openSaveOutput(file), StandardCharsets.UTF_8), STREAM_BUFFER_SIZE)) {
+            int position = 0;
+            for (Task t : tasks) {
+                String line = t.toFileString();
+                writer.write(line);
+                writer.newLine();
+                long hash = lineHash(line);
+                bodyHash = (bodyHash ^ hash) * 0x100000001b3L;
+                written.put(t, new SyncedLine(hash, hash, position++));
+            }
+            for (String line : unreadLines) {
+                writer.write(line);
+                writer.newLine();
+                bodyHash = (bodyHash ^ lineHash(line)) * 0x100000001b3L;
             }
+            if (generation >= 0) {
+                writer.write(String.format("%s%x %d %x", TRAILER, generation, offset, bodyHash));
+                writer.newLine();
+            }
+        }
+        return written;
+    }
 
-            return new KattyResult(true, "Data loaded successfully!", getFormattedTaskList(), null);
+    /**
+     * Writes the tasks to a temporary file and has the change log put it in place of the save file.
+     */
+    private void writeSnapshot() throws IOException {
+        Path temp = createTempFile();
+        try {
+            Map<Task, SyncedLine> written = writeTasks(temp, changeLog.getGeneration(), logOffset);
+            if (changeLog.commit(temp, savePath, logOffset)) {
+                markSynced(written);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
 
-        } catch (Exception e) {
-            return new KattyResult(false, "Critical error: The save file could not be read!",
-                    "", KattyException.corruptFile());
+    /**
+     * Creates an empty file next to the save file, to write the save file to before moving it
+     * into place.
+     * <p>
+     * Moving the file replaces the save file's permissions with its own, so it is given the
+     * save file's permissions, or the defaults of a new file if there is no save file yet.
+     * </p>
+     */
+    private Path createTempFile() throws IOException {
+        Path folder = savePath.toAbsolutePath().getParent();
+        String prefix = savePath.getFileName().toString();
+        Path temp;
+        while (true) {
+            temp = folder.resolve(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.createFile(temp);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // Another temporary file took that name, so try another
+            }
+        }
+        try {
+            if (Files.exists(savePath)
+                    && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(savePath));
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
         }
+        return temp;
     }
 
     /**
-     * Searches the task list for tasks whose names contain the specified keyword.
+     * Returns the conflict found by the last save while merging outside changes, if it has not been returned yet.
+     * <p>
+     * Commands ignore the result of the save they trigger, so this lets the caller report it.
+     * </p>
      *
-     * @param keyword the keyword to search for within task names.
-     * @return A KattyResult containing the matching tasks or an error if none found.
+     * @return the conflict, or {@code null} if there is none to report
      */
-    public KattyResult findTasksByName(String keyword) {
-        String lowerKeyword = keyword.toLowerCase();
+    public KattyResult takeMergeConflict() {
+        KattyResult conflict = unreportedMerge;
+        unreportedMerge = null;
+        return conflict;
+    }
 
-        String formattedMatches = IntStream.range(0, tasks.size())
-                .mapToObj(i -> String.format("%d. %s", i + 1, tasks.get(i).toString()))
-                .filter(t -> t.toLowerCase().contains(lowerKeyword))
-                .reduce((a, b) -> a + "\n" + b)
-                .orElse("");
+    /**
+     * Checks whether the save file was written since Katty last read or wrote it.
+     */
+    private boolean isChangedOnDisk() {
+        try {
+            return Files.exists(savePath) && (syncedModified == null
+                    || !Files.getLastModifiedTime(savePath).equals(syncedModified)
+                    || Files.size(savePath) != syncedSize);
+        } catch (IOException e) {
+            return false;
+        }
+    }
 
-        if (formattedMatches.isEmpty()) {
-            return new KattyResult(false, "I couldn't find anything!",
-                    "Try a different keyword?", KattyException.searchResultEmpty());
+    private void markSynced(Map<Task, SyncedLine> lines) {
+        synced = lines;
+        try {
+            syncedModified = Files.getLastModifiedTime(savePath);
+            syncedSize = Files.size(savePath);
+        } catch (IOException e) {
+            syncedModified = null;
+        }
+    }
+
+    /**
+     * Applies changes made to the save file by someone else, such as a text editor or a sync tool.
+     * <p>
+     * Nothing is reparsed unless the file was written since Katty last read or wrote it.
+     * </p>
+     *
+     * @return what changed, or a conflict if a task was changed both in the file and in Katty
+     */
+    public KattyResult reloadChanges() {
+        if (!isChangedOnDisk()) {
+            return unchanged();
         }
+        KattyResult result = mergeChanges();
+        if (result.getError() == KattyError.SAVE_CONFLICT) {
+            saveFile();
+            unreportedMerge = null;
+        }
+        return result;
+    }
+
+    private static KattyResult unchanged() {
+        return new KattyResult(true, "Your save file hasn't changed.", "", null);
+    }
 
-        return new KattyResult(true, "I found these matches!", formattedMatches, null);
+    /**
+     * Applies the changes that other Katty processes logged since this one last looked.
+     * <p>
+     * This only reads the end of the change log, so it is cheap enough to call before every command.
+     * </p>
+     *
+     * @return what changed, with empty data if nothing did
+     */
+    public KattyResult syncLog() {
+        if (tasks instanceof LazyTaskList && isChangedOnDisk()) {
+            return mergeChanges();
+        }
+        if (changeLog == null) {
+            return unchanged();
+        }
+        try {
+            ChangeLog.Tail tail = changeLog.readFrom(logOffset);
+            logOffset = tail.offset();
+            if (tail.isReset()) {
+                loadFile();
+                return new KattyResult(true, "I picked up changes from another Katty!",
+                        "reloaded the whole list", null);
+            }
+            Applied applied = applyRecords(tail.records());
+            if (applied.unmatched() > 0) {
+                // Another process removed a line this one changed meanwhile. Replaying the whole log
+                // in order, including this process's records, gives every process the same list.
+                load(true);
+                return new KattyResult(true, "I picked up changes from another Katty!",
+                        "reloaded the whole list", null);
+            }
+            return applied.summary().isEmpty() ? unchanged()
+                    : new KattyResult(true, "I picked up changes from another Katty!", applied.summary(), null);
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't catch up with the other Kattys!", "", KattyError.CORRUPT_FILE);
+        }
+    }
+
+    /**
+     * Applies records read from the change log to the task list.
+     * <p>
+     * A removed line removes one task that is saved as that line, and a replacing line right
+     * after it takes the task's place in the list. Only the tasks with the names found in
+     * removed lines are turned back into lines to find them, so a few records cost little
+     * even on a long list. Lines this version of Katty cannot read are skipped, and so are
+     * removed lines that match no task, which are counted.
+     * </p>
+     *
+     * @return what changed
+     */
+    private Applied applyRecords(List<String> records) {
+        Set<String> names = new HashSet<>();
+        for (String record : records) {
+            if (record.charAt(0) == ChangeLog.REMOVED) {
+                try {
+                    names.add(TaskParser.fromFileString(record.substring(1)).getTaskName());
+                } catch (Exception e) {
+                    // No task can be saved as a line that cannot be read
+                }
+            }
+        }
+        Map<String, List<Task>> byLine = new HashMap<>();
+        for (Task t : tasks) {
+            if (names.contains(t.getTaskName())) {
+                byLine.computeIfAbsent(t.toFileString(), l -> new ArrayList<>()).add(t);
+            }
+        }
+
+        Set<Task> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Task> added = new ArrayList<>();
+        Map<Task, Task> replaced = new IdentityHashMap<>();
+        Map<Task, Integer> positions = new IdentityHashMap<>();
+        Task lastRemoved = null;
+        int unmatched = 0;
+        int position = 0;
+        for (String record : records) {
+            String line = record.substring(1);
+            char kind = record.charAt(0);
+            if (kind == UndoHistory.POSITION) {
+                try {
+                    position = Integer.parseInt(line);
+                } catch (NumberFormatException e) {
+                    position = 0;
+                }
+                continue;
+            }
+            int at = position;
+            position = 0;
+            if (kind == ChangeLog.REMOVED) {
+                List<Task> matches = byLine.get(line);
+                Task t = matches == null || matches.isEmpty() ? null : matches.remove(matches.size() - 1);
+                if (t == null) {
+                    unmatched++;
+                } else if (!added.removeIf(a -> a == t)) {
+                    removed.add(t);
+                }
+                lastRemoved = t;
+            } else if (kind == ChangeLog.ADDED || (kind == ChangeLog.REPLACED && lastRemoved != null)) {
+                try {
+                    Task t = TaskParser.fromFileString(line);
+                    if (kind == ChangeLog.REPLACED && removed.remove(lastRemoved)) {
+                        replaced.put(lastRemoved, t);
+                    } else {
+                        added.add(t);
+                        positions.put(t, at);
+                    }
+                    byLine.computeIfAbsent(line, l -> new ArrayList<>()).add(t);
+                } catch (Exception e) {
+                    // Left for a newer Katty to read from the save file
+                }
+            }
+        }
+        if (removed.isEmpty() && added.isEmpty() && replaced.isEmpty()) {
+            return new Applied(0, 0, 0, unmatched);
+        }
+
+        tasks.removeIf(removed::contains);
+        tasks.replaceAll(t -> replaced.getOrDefault(t, t));
+        for (Task t : added) {
+            // A task put back under its old number keeps it, unless that breaks the sort order
+            int at = positions.get(t);
+            if (at >= 1 && at <= tasks.size() + 1) {
+                tasks.add(at - 1, t);
+            } else {
+                tasks.add(t);
+            }
+        }
+        sortTasks();
+        removed.forEach(t -> listeners.forEach(l -> l.taskRemoved(t)));
+        replaced.forEach((old, t) -> listeners.forEach(l -> {
+            l.taskRemoved(old);
+            l.taskAdded(t);
+        }));
+        added.forEach(t -> listeners.forEach(l -> l.taskAdded(t)));
+        return new Applied(added.size(), replaced.size(), removed.size(), unmatched);
+    }
+
+    /**
+     * Counts what applying records changed.
+     *
+     * @param unmatched how many removed lines matched no task
+     */
+    private record Applied(int added, int changed, int removed, int unmatched) {
+        /**
+         * Returns a summary of what changed, or an empty string if nothing did.
+         */
+        private String summary() {
+            return added + changed + removed == 0 ? ""
+                    : String.format("%d added, %d changed, %d removed", added, changed, removed);
+        }
+    }
+
+    /**
+     * Applies records to the task list and saves them, to undo or redo a change.
+     * <p>
+     * Tasks are matched by their save file line like records from the change log, so
+     * records whose task is gone by now are skipped. The records are logged for other
+     * Katty processes as they are, not the whole list.
+     * </p>
+     *
+     * @param records the records, as described in {@link ChangeLog}
+     * @return how many tasks were added, changed and removed
+     */
+    public KattyResult applyChanges(List<String> records) {
+        reloadIfStale();
+        String summary = applyRecords(records).summary();
+        if (summary.isEmpty()) {
+            return new KattyResult(true, "", "those tasks are gone already", null);
+        }
+        KattyResult saved = saveUnrecorded(records);
+        return saved.isSuccess() ? new KattyResult(true, "", summary, null) : saved;
+    }
+
+    /**
+     * Applies changes made to the save file since Katty last read or wrote it.
+     * <p>
+     * While the change log is open, the log is read first, all under its lock. A save file
+     * written by another Katty process then holds nothing new, and only becomes the baseline
+     * for spotting later edits. A file edited by hand is diffed, and what changed is logged
+     * and saved before the lock is let go, so every other process picks the edit up from the
+     * log instead of diffing the file again.
+     * </p>
+     */
+    private KattyResult mergeChanges() {
+        if (tasks instanceof LazyTaskList) {
+            KattyResult loaded = loadFile();
+            return new KattyResult(loaded.isSuccess(), "I reloaded your whole save file!", "",
+                    loaded.getError());
+        }
+        if (changeLog == null) {
+            return diffChanges();
+        }
+        try {
+            return changeLog.whileLocked(() -> {
+                KattyResult picked = syncLog();
+                KattyResult merged = diffChanges();
+                return merged != null ? merged : picked;
+            });
+        } catch (IOException e) {
+            return new KattyResult(false, "Critical error: The save file could not be read!",
+                    "", KattyError.CORRUPT_FILE);
+        }
+    }
+
+    /**
+     * Diffs the save file against the lines Katty last read or wrote, by line hash,
+     * and applies only the lines that were added or removed.
+     * <p>
+     * A line removed from the file removes its task, unless the task was also changed in
+     * Katty since, in which case Katty's version is kept and reported as a conflict. The
+     * file's version of that task is then the line added between the same unchanged lines,
+     * which is reported instead of being added too. Lines that cannot be parsed are skipped
+     * and kept as they are, and only those that were not skipped before are reported.
+     * </p>
+     *
+     * @return what changed, or {@code null} if the file was written by another Katty process
+     */
+    private KattyResult diffChanges() {
+        FileTime modified;
+        long size;
+        List<String> fileLines = new ArrayList<>();
+        Trailer trailer;
+        try {
+            modified = Files.getLastModifiedTime(savePath);
+            size = Files.size(savePath);
+            trailer = readSaveFile(fileLines::add);
+        } catch (IOException e) {
+            return new KattyResult(false, "Critical error: The save file could not be read!",
+                    "", KattyError.CORRUPT_FILE);
+        }
+        Map<Long, List<Integer>> theirs = new HashMap<>();
+        for (int i = 0; i < fileLines.size(); i++) {
+            theirs.computeIfAbsent(lineHash(fileLines.get(i)), h -> new ArrayList<>()).add(i);
+        }
+        if (changeLog != null && trailer.isPristine()) {
+            rebase(theirs, modified, size);
+            return null;
+        }
+
+        BitSet kept = new BitSet(fileLines.size());
+        List<Integer> keptWhenSynced = new ArrayList<>();
+        Set<Task> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Task> conflicting = new ArrayList<>();
+        for (Map.Entry<Task, SyncedLine> entry : synced.entrySet()) {
+            List<Integer> unchanged = theirs.get(entry.getValue().raw());
+            if (unchanged != null && !unchanged.isEmpty()) {
+                kept.set(unchanged.remove(unchanged.size() - 1));
+                keptWhenSynced.add(entry.getValue().position());
+            } else if (lineHash(entry.getKey().toFileString()) == entry.getValue().parsed()) {
+                removed.add(entry.getKey());
+            } else {
+                conflicting.add(entry.getKey());
+            }
+        }
+        List<String> theirVersions = pairConflicts(conflicting, fileLines, kept, keptWhenSynced);
+
+        List<Task> added = new ArrayList<>();
+        List<String> records = new ArrayList<>();
+        Set<String> skippedBefore = new HashSet<>(unreadLines);
+        List<String> unread = new ArrayList<>();
+        int skipped = 0;
+        for (int i = kept.nextClearBit(0); i < fileLines.size(); i = kept.nextClearBit(i + 1)) {
+            String line = fileLines.get(i);
+            try {
+                Task t = TaskParser.fromFileString(line);
+                added.add(t);
+                records.add(added(t));
+                synced.put(t, new SyncedLine(lineHash(line), lineHash(t.toFileString()), i));
+            } catch (Exception e) {
+                unread.add(line);
+                skipped += skippedBefore.contains(line) ? 0 : 1;
+            }
+        }
+        unreadLines = unread;
+
+        List<Task> gone = new ArrayList<>();
+        synced.keySet().removeAll(removed);
+        tasks.removeIf(t -> removed.contains(t) && gone.add(t));
+        gone.forEach(t -> records.add(removed(t.toFileString())));
+        tasks.addAll(added);
+        sortTasks();
+        gone.forEach(t -> listeners.forEach(l -> l.taskRemoved(t)));
+        added.forEach(t -> listeners.forEach(l -> l.taskAdded(t)));
+        syncedModified = modified;
+        syncedSize = size;
+        if (changeLog != null) {
+            try {
+                logOffset = changeLog.append(records);
+                writeSnapshot();
+            } catch (IOException e) {
+                // Every other process diffs the file itself then
+            }
+        }
+
+        String summary = String.format("%d added, %d removed", added.size(), gone.size());
+        if (!conflicting.isEmpty()) {
+            String dropped = theirVersions.isEmpty() ? ""
+                    : "\nThe file had instead:\n" + theirVersions.stream()
+                            .map(TaskManager::toDisplayString).collect(Collectors.joining("\n"));
+            return new KattyResult(true, "Your save file changed while I was changing the same tasks!",
+                    summary + String.format(", kept my version of %d", conflicting.size()) + dropped,
+                    KattyError.SAVE_CONFLICT);
+        }
+        if (skipped > 0) {
+            return new KattyResult(true, "I picked up changes to your save file, but skipped some hairballs.",
+                    summary + String.format(", %d skipped", skipped), KattyError.PARTIAL_LOAD_SAVE_FILE);
+        }
+        return new KattyResult(true, "I picked up changes to your save file!", summary, null);
+    }
+
+    /**
+     * Finds the file's version of each task changed both in Katty and in the file, and marks it as kept
+     * so it is not added as a new task.
+     * <p>
+     * The unchanged lines split both the file as Katty last synced it and the file now into
+     * the same gaps. A task whose line was between the same two unchanged lines as an added
+     * line is taken to have been edited into it.
+     * </p>
+     *
+     * @param keptWhenSynced where each unchanged line was when Katty last synced
+     * @return the lines paired with a conflicting task
+     */
+    private List<String> pairConflicts(List<Task> conflicting, List<String> fileLines, BitSet kept,
+            List<Integer> keptWhenSynced) {
+        if (conflicting.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<Integer>> addedByGap = new HashMap<>();
+        int gap = 0;
+        for (int i = 0; i < fileLines.size(); i++) {
+            if (kept.get(i)) {
+                gap++;
+            } else if (isReadable(fileLines.get(i))) {
+                addedByGap.computeIfAbsent(gap, g -> new ArrayList<>()).add(i);
+            }
+        }
+        int[] keptBefore = keptWhenSynced.stream().mapToInt(Integer::intValue).sorted().toArray();
+        List<String> paired = new ArrayList<>();
+        for (Task t : conflicting) {
+            int at = Arrays.binarySearch(keptBefore, synced.get(t).position());
+            List<Integer> candidates = addedByGap.get(at < 0 ? -at - 1 : at);
+            if (candidates != null && !candidates.isEmpty()) {
+                int line = candidates.remove(0);
+                kept.set(line);
+                paired.add(fileLines.get(line));
+            }
+        }
+        return paired;
+    }
+
+    private static boolean isReadable(String line) {
+        try {
+            TaskParser.fromFileString(line);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Takes a save file written by another Katty process as the baseline for spotting later edits.
+     * <p>
+     * Its changes already came through the change log, so each of its lines is only matched
+     * to a task that is saved the same way.
+     * </p>
+     */
+    private void rebase(Map<Long, List<Integer>> theirs, FileTime modified, long size) {
+        Map<Task, SyncedLine> lines = new IdentityHashMap<>();
+        for (Task t : tasks) {
+            long hash = lineHash(t.toFileString());
+            List<Integer> same = theirs.get(hash);
+            if (same != null && !same.isEmpty()) {
+                lines.put(t, new SyncedLine(hash, hash, same.remove(same.size() - 1)));
+            }
+        }
+        synced = lines;
+        syncedModified = modified;
+        syncedSize = size;
+    }
+
+    /**
+     * Hashes a save file line with 64-bit FNV-1a, which is enough to tell lines apart without keeping them.
+     */
+    private static long lineHash(String line) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            hash ^= line.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Remembers the line a task was last read from or written as.
+     *
+     * @param raw      hash of the line as it appeared in the file
+     * @param parsed   hash of the line the task wrote back at that time
+     * @param position where the line was among the task lines of the file
+     */
+    private record SyncedLine(long raw, long parsed, int position) {
+    }
+
+    /**
+     * Describes the trailer line that Katty writes after the tasks in a save file.
+     *
+     * @param generation the generation of the change log the file was written in, or -1 if unknown
+     * @param offset     the end of the change log that the file includes
+     * @param isPristine whether the lines above the trailer are still the ones Katty wrote
+     */
+    private record Trailer(long generation, long offset, boolean isPristine) {
+    }
+
+    /**
+     * Reads the save file, passing on every task line, and returns its trailer.
+     *
+     * @param lines receives each non-empty line other than the trailer, trimmed
+     */
+    private Trailer readSaveFile(Consumer<String> lines) throws IOException {
+        long bodyHash = 0;
+        String trailer = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(openSaveInput(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                line = line.trim();
+                if (line.startsWith(TRAILER)) {
+                    trailer = line;
+                } else if (!line.isEmpty()) {
+                    bodyHash = (bodyHash ^ lineHash(line)) * 0x100000001b3L;
+                    lines.accept(line);
+                }
+            }
+        }
+        if (trailer == null) {
+            return new Trailer(-1, 0, false);
+        }
+        try {
+            String[] fields = trailer.substring(TRAILER.length()).split(" ");
+            return new Trailer(Long.parseLong(fields[0], 16), Long.parseLong(fields[1]),
+                    Long.parseUnsignedLong(fields[2], 16) == bodyHash);
+        } catch (RuntimeException e) {
+            return new Trailer(-1, 0, false);
+        }
+    }
+
+    private OutputStream openSaveOutput(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        return isCompressed ? new GZIPOutputStream(out, STREAM_BUFFER_SIZE) : out;
+    }
+
+    /**
+     * Opens the save file for reading, decompressing it if it starts with the GZIP magic bytes.
+     * <p>
+     * Loading a compressed file also turns compression on, so it is saved the way it was found.
+     * </p>
+     */
+    private InputStream openSaveInput() throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(savePath), STREAM_BUFFER_SIZE);
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        isCompressed = magic == GZIPInputStream.GZIP_MAGIC;
+        return isCompressed ? new GZIPInputStream(in, STREAM_BUFFER_SIZE) : in;
+    }
+
+    /**
+     * Loads the state of tasks into the {@code TaskManager} from the local save file.
+     * <p>
+     * This method attempts to read {@code kattySave.txt}, plain or GZIP-compressed.
+     * It processes the file line-by-line,
+     * utilizing {@link TaskParser#fromFileString(String)} to reconstruct task objects.
+     * If a line is malformed or corrupted, it is skipped to ensure maximum data recovery,
+     * and a flag is set to notify the user of the partial load. Skipped lines are written
+     * back as they are with every save, until they are fixed by hand. Completed tasks dated more
+     * than {@value #ARCHIVE_AFTER_DAYS} days ago are moved to the archive with the first
+     * change saved afterwards, unless lines were skipped.
+     * </p>
+     * <p>
+     * Changes other Katty processes logged after the file was saved are applied on top.
+     * In memory-bounded mode, a plain text file is only indexed, see {@link #isMemoryBounded()}.
+     * </p>
+     *
+     * @return A {@link KattyResult} indicating if the load was successful, partially
+     *      successful (with corruption), or failed entirely.
+     */
+    public KattyResult loadFile() {
+        return load(false);
+    }
+
+    /**
+     * Loads the save file as {@link #loadFile()} does.
+     *
+     * @param isOwnReplayed whether to also replay the changes this process logged after the
+     *     file was saved, which it otherwise has already
+     */
+    private KattyResult load(boolean isOwnReplayed) {
+        boolean isAlone = !isMemoryBounded() && openLog();
+        try {
+            if (!Files.exists(savePath)) {
+                return new KattyResult(false, "No save file found!", "", KattyError.NO_SAVE_FILE);
+            }
+            closeTasks();
+            List<String> skipped = new ArrayList<>();
+            unreadLines = skipped;
+            if (isMemoryBounded() && !isCompressedOnDisk()) {
+                tasks = LazyTaskList.load(savePath, CACHE, skipped::add);
+                markSynced(new IdentityHashMap<>());
+            } else {
+                tasks = new ArrayList<>();
+                Map<Task, SyncedLine> lines = new IdentityHashMap<>();
+                int[] position = {0};
+                Trailer trailer = readSaveFile(line -> {
+                    try {
+                        Task t = TaskParser.fromFileString(line);
+                        if (t != null) {
+                            tasks.add(t);
+                            lines.put(t, new SyncedLine(lineHash(line), lineHash(t.toFileString()), position[0]));
+                        }
+                    } catch (Exception e) {
+                        skipped.add(line);
+                    }
+                    position[0]++;
+                });
+                markSynced(lines);
+                catchUpOnLog(trailer, isAlone, isOwnReplayed);
+            }
+            sortTasks();
+            // A file with lines that were skipped is left alone until it loads cleanly
+            isArchiveDue = skipped.isEmpty();
+            listeners.forEach(l -> l.tasksReloaded(tasks));
+
+            if (!skipped.isEmpty()) {
+                return new KattyResult(true,
+                        "Meow! I recovered your tasks, but some corrupted lines were skipped.",
+                        this::getFormattedTaskList, KattyError.PARTIAL_LOAD_SAVE_FILE);
+            }
+
+            return new KattyResult(true, "Data loaded successfully!", this::getFormattedTaskList, null);
+
+        } catch (Exception e) {
+            return new KattyResult(false, "Critical error: The save file could not be read!",
+                    "", KattyError.CORRUPT_FILE);
+        } finally {
+            if (isAlone) {
+                shareLog();
+            }
+        }
+    }
+
+    /**
+     * Reads the save file into the task list without writing anything, to search a list that is not in use.
+     * <p>
+     * Unlike {@link #loadFile()}, nothing is archived, no change log is opened or folded and
+     * nothing is saved, so the files are left exactly as they were. Changes that other Katty
+     * processes logged but did not save into the file yet are not seen. In memory-bounded mode,
+     * a plain text file is only indexed, as when it is loaded.
+     * </p>
+     *
+     * @return success of operation, with the lines that were skipped counted as data
+     */
+    public KattyResult readFile() {
+        if (!Files.exists(savePath)) {
+            return new KattyResult(false, "No save file found!", "", KattyError.NO_SAVE_FILE);
+        }
+        closeTasks();
+        int[] skipped = {0};
+        try {
+            if (isMemoryBounded() && !isCompressedOnDisk()) {
+                tasks = LazyTaskList.load(savePath, CACHE, line -> skipped[0]++);
+            } else {
+                tasks = new ArrayList<>();
+                readSaveFile(line -> {
+                    try {
+                        tasks.add(TaskParser.fromFileString(line));
+                    } catch (Exception e) {
+                        skipped[0]++;
+                    }
+                });
+            }
+        } catch (IOException e) {
+            return new KattyResult(false, "Critical error: The save file could not be read!",
+                    "", KattyError.CORRUPT_FILE);
+        }
+        sortTasks();
+        return new KattyResult(true, "", skipped[0] + " skipped", null);
+    }
+
+    /**
+     * Opens the change log shared with other Katty processes, the first time it is needed.
+     * <p>
+     * If it cannot be opened, the save file is written directly as if no other process used it.
+     * </p>
+     *
+     * @return {@code true} if no other process uses the save file, which must then be followed by {@link #shareLog()}
+     */
+    private boolean openLog() {
+        if (changeLog != null) {
+            return false;
+        }
+        ChangeLog log = new ChangeLog(savePath);
+        try {
+            boolean isAlone = log.open();
+            changeLog = log;
+            logOffset = log.getEnd();
+            return isAlone;
+        } catch (IOException e) {
+            closeQuietly(log);
+            return false;
+        }
+    }
+
+    private void shareLog() {
+        if (changeLog == null) {
+            return;
+        }
+        try {
+            changeLog.share();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Replays the changes logged after the save file was written, and folds them into the
+     * save file if no other process is using it.
+     * <p>
+     * A trailer from another generation means the file was saved after the log was last
+     * folded, or put back from elsewhere, so the file is taken as it is.
+     * </p>
+     */
+    private void catchUpOnLog(Trailer trailer, boolean isAlone, boolean isOwnReplayed) {
+        if (changeLog == null) {
+            return;
+        }
+        try {
+            long end = changeLog.getEnd();
+            logOffset = trailer.generation() == changeLog.getGeneration() ? Math.min(trailer.offset(), end) : end;
+            ChangeLog.Tail tail = changeLog.readFrom(logOffset, isOwnReplayed);
+            logOffset = tail.offset();
+            applyRecords(tail.records());
+            if (isAlone && changeLog.getEnd() > changeLog.getStart()) {
+                foldLog();
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Writes every logged change into the save file and starts a new generation of the log.
+     * <p>
+     * The save file is replaced before the log is emptied, so a crash in between leaves a
+     * save file from the next generation, which is then taken as it is.
+     * </p>
+     */
+    private void foldLog() throws IOException {
+        long next = changeLog.getGeneration() + 1;
+        Path temp = createTempFile();
+        try {
+            Map<Task, SyncedLine> written = writeTasks(temp, next, changeLog.getStart());
+            Files.move(temp, savePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changeLog.reset(next);
+            logOffset = changeLog.getStart();
+            markSynced(written);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Stops sharing changes with other Katty processes and lets go of the change log,
+     * and of the save file if the tasks were read from it on demand.
+     */
+    public void close() {
+        if (changeLog != null) {
+            closeQuietly(changeLog);
+            changeLog = null;
+        }
+        closeTasks();
+    }
+
+    private void closeTasks() {
+        if (tasks instanceof LazyTaskList lazy) {
+            closeQuietly(lazy);
+            tasks = new ArrayList<>();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Closing releases the locks either way
+        }
+    }
+
+    /**
+     * Checks whether the save file starts with the GZIP magic bytes, which also turns compression on if so.
+     */
+    private boolean isCompressedOnDisk() throws IOException {
+        openSaveInput().close();
+        return isCompressed;
+    }
+
+    /**
+     * Searches the task list for tasks whose names contain the specified keyword.
+     *
+     * @param keyword the keyword to search for within task names.
+     * @return A KattyResult containing the matching tasks or an error if none found.
+     */
+    public KattyResult findTasksByName(String keyword) {
+        reloadIfStale();
+        String lowerKeyword = keyword.toLowerCase();
+
+        int[] matches = IntStream.range(0, tasks.size())
+                .filter(i -> tasks.get(i).toString().toLowerCase().contains(lowerKeyword))
+                .toArray();
+
+        if (matches.length == 0) {
+            return new KattyResult(false, "I couldn't find anything!",
+                    "Try a different keyword?", KattyError.SEARCH_RESULT_EMPTY);
+        }
+
+        List<Task> matchedTasks = Arrays.stream(matches).mapToObj(tasks::get).toList();
+        return new KattyResult(true, "I found these matches!", () -> IntStream.range(0, matches.length)
+                .mapToObj(i -> String.format("%d. %s", matches[i] + 1, matchedTasks.get(i).toString()))
+                .collect(Collectors.joining("\n")), null);
+    }
+
+    /**
+     * Moves completed tasks out of the task list into the compressed archive file.
+     * <p>
+     * Archived tasks are no longer loaded at startup, listed, searched by {@code find}
+     * or rewritten on every save.
+     * </p>
+     *
+     * @param days only archive tasks dated more than this many days ago,
+     *     or a negative number to archive every completed task
+     * @return success of operation
+     */
+    public KattyResult archiveCompleted(int days) {
+        reloadIfStale();
+        List<String> records;
+        try {
+            records = moveToArchive(days);
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't reach the archive!", "", KattyError.FAIL_TO_ARCHIVE);
+        }
+        if (records.isEmpty()) {
+            return new KattyResult(false, "There's nothing to tuck away!", "", KattyError.ARCHIVE_EMPTY);
+        }
+        saveUnrecorded(records);
+        return new KattyResult(true, String.format("I've tucked away %d completed task%s!",
+                records.size(), records.size() == 1 ? "" : "s"), "Use unarchive to bring one back.", null);
+    }
+
+    /**
+     * Appends archivable tasks to the archive and takes them out of the task list, without saving it.
+     *
+     * @param days as in {@link #archiveCompleted(int)}
+     * @return the records of the tasks taken out, which is empty if there were none
+     * @throws IOException if the archive could not be written, in which case the list is left as it was
+     */
+    private List<String> moveToArchive(int days) throws IOException {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(Math.max(days, 0));
+        Predicate<Task> isArchivable = t -> t.isComplete() && (days < 0
+                || (!t.getSortDate().equals(LocalDateTime.MIN) && t.getSortDate().isBefore(cutoff)));
+
+        BitSet positions = new BitSet();
+        for (int i = 0; i < tasks.size(); i++) {
+            boolean mayBeComplete = !(tasks instanceof LazyTaskList lazy) || lazy.isComplete(i);
+            if (mayBeComplete && isArchivable.test(tasks.get(i))) {
+                positions.set(i);
+            }
+        }
+        List<Task> archived = positions.stream().mapToObj(tasks::get).toList();
+        List<String> lines = archived.stream().map(Task::toFileString).toList();
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+
+        archive.append(lines);
+        removeAt(positions);
+        archived.forEach(t -> listeners.forEach(l -> l.taskRemoved(t)));
+        return lines.stream().map(TaskManager::removed).toList();
+    }
+
+    /**
+     * Removes every task that has the same type, name and dates as one before it in the list.
+     * <p>
+     * The list is gone through once, so the first copy of each task is kept.
+     * </p>
+     *
+     * @return success of operation, with the removed tasks as data
+     */
+    public KattyResult dedupe() {
+        reloadIfStale();
+        Set<String> seen = new HashSet<>();
+        BitSet positions = new BitSet();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!seen.add(DuplicateIndex.keyOf(tasks.get(i)))) {
+                positions.set(i);
+            }
+        }
+        if (positions.isEmpty()) {
+            return new KattyResult(false, "There aren't any duplicates!", "", KattyError.NO_DUPLICATES);
+        }
+
+        List<Task> dropped = positions.stream().mapToObj(tasks::get).toList();
+        removeAt(positions);
+        dropped.forEach(t -> listeners.forEach(l -> l.taskRemoved(t)));
+        saveChanges(dropped.stream().map(t -> removed(t.toFileString())).toList());
+        return new KattyResult(true, String.format("I've cleared out %d duplicate%s!",
+                dropped.size(), dropped.size() == 1 ? "" : "s"),
+                () -> dropped.stream().map(Task::toString).collect(Collectors.joining("\n")), null);
+    }
+
+    /**
+     * Returns every task as its save file line, to back the list up as it is now.
+     *
+     * @return the lines in list order, which later changes to the list leave alone
+     */
+    public List<String> snapshot() {
+        return tasks.stream().map(Task::toFileString).toList();
+    }
+
+    /**
+     * Makes the task list hold the tasks saved as the given lines, as one change that can be undone.
+     * <p>
+     * Only the tasks that differ are removed and added, matched by their line.
+     * </p>
+     *
+     * @param lines the tasks in save file format, such as a backup
+     * @return how many tasks were added and removed
+     */
+    public KattyResult restoreLines(List<String> lines) {
+        if (tasks instanceof LazyTaskList) {
+            return new KattyResult(false, "I can't swap out a file I'm reading bits of!", "",
+                    KattyError.MEMORY_BOUNDED);
+        }
+        Map<String, Integer> wanted = new HashMap<>();
+        lines.forEach(line -> wanted.merge(line, 1, Integer::sum));
+        List<String> records = new ArrayList<>();
+        for (Task t : tasks) {
+            String line = t.toFileString();
+            if (wanted.getOrDefault(line, 0) > 0) {
+                wanted.merge(line, -1, Integer::sum);
+            } else {
+                records.add(removed(line));
+            }
+        }
+        for (String line : lines) {
+            if (wanted.getOrDefault(line, 0) > 0) {
+                wanted.merge(line, -1, Integer::sum);
+                records.add(ChangeLog.ADDED + line);
+            }
+        }
+
+        String summary = applyRecords(records).summary();
+        if (summary.isEmpty()) {
+            return new KattyResult(true, "", "nothing had changed", null);
+        }
+        KattyResult saved = saveChanges(records);
+        return saved.isSuccess() ? new KattyResult(true, "", summary, null) : saved;
+    }
+
+    /**
+     * Searches the archive for tasks containing the specified keyword.
+     *
+     * @param keyword the keyword to search for
+     * @return A KattyResult containing the matching tasks numbered by their position
+     *     in the archive, or an error if none found.
+     */
+    public KattyResult findArchivedTasks(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        List<ArchiveStore.Entry> matches;
+        try {
+            matches = archive.find(line -> line.toLowerCase().contains(lowerKeyword));
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't reach the archive!", "", KattyError.FAIL_TO_ARCHIVE);
+        }
+
+        if (matches.isEmpty()) {
+            return new KattyResult(false, "I couldn't find anything in the archive!",
+                    "Try a different keyword?", KattyError.SEARCH_RESULT_EMPTY);
+        }
+
+        return new KattyResult(true, "I dug these out of the archive!", () -> matches.stream()
+                .map(entry -> entry.position() + ". " + toDisplayString(entry.line()))
+                .collect(Collectors.joining("\n")), null);
+    }
+
+    private static String toDisplayString(String line) {
+        try {
+            return TaskParser.fromFileString(line).toString();
+        } catch (KattyException e) {
+            return line;
+        }
+    }
+
+    /**
+     * Moves a task from the archive back into the task list.
+     *
+     * @param position position of the task in the archive, as shown by {@link #findArchivedTasks}
+     * @return success of operation
+     */
+    public KattyResult unarchive(int position) {
+        reloadIfStale();
+        String line;
+        try {
+            line = archive.remove(position);
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't reach the archive!", "", KattyError.FAIL_TO_ARCHIVE);
+        }
+        if (line == null) {
+            return new KattyResult(false, "That task isn't in the archive!", "", KattyError.NO_ARCHIVED_TASK);
+        }
+
+        try {
+            Task t = TaskParser.fromFileString(line);
+            addSorted(t);
+            listeners.forEach(l -> l.taskAdded(t));
+            saveUnrecorded(List.of(added(t)));
+            return new KattyResult(true, "Welcome back! I've restored:", t::toString, null);
+        } catch (KattyException e) {
+            return new KattyResult(false, "That archived task is garbled!", "", e.getError());
+        }
+    }
+
+    /**
+     * Imports tasks from a CSV or iCalendar file.
+     * <p>
+     * The file is streamed in batches, each appended to the task list as it arrives.
+     * The list is sorted once and saved once, after the whole file has been read,
+     * and the new tasks are shared with other Katty processes in a single append.
+     * Tasks already in the list, or earlier in the file, are skipped as duplicates.
+     * If the file cannot be read to the end, the tasks added so far are taken out again,
+     * so an import either happens whole or not at all. Nothing is saved if no task was added.
+     * </p>
+     *
+     * @param file     the file to import
+     * @param progress receives progress messages during long imports
+     * @return success of operation, with a summary of rejected rows
+     */
+    public KattyResult importTasks(Path file, Consumer<String> progress) {
+        reloadIfStale();
+        TaskTransfer.Report report;
+        List<Task> imported = new ArrayList<>();
+        int[] duplicateCount = {0};
+        try {
+            report = TaskTransfer.importFile(file, batch -> {
+                for (Task t : batch) {
+                    if (duplicates.contains(t)) {
+                        duplicateCount[0]++;
+                        continue;
+                    }
+                    tasks.add(t);
+                    imported.add(t);
+                    listeners.forEach(l -> l.taskAdded(t));
+                }
+            }, progress);
+        } catch (IOException e) {
+            // The imported tasks are still the last ones in the list, since it is only sorted at the end
+            BitSet positions = new BitSet();
+            positions.set(tasks.size() - imported.size(), tasks.size());
+            removeAt(positions);
+            imported.forEach(t -> listeners.forEach(l -> l.taskRemoved(t)));
+            return new KattyResult(false, "I couldn't read that file, so I didn't import any of it!", "",
+                    KattyError.FAIL_TO_TRANSFER);
+        }
+
+        if (imported.isEmpty()) {
+            return new KattyResult(false, String.format(
+                    "I couldn't import anything new from that file, skipping %d rows and %d duplicates!",
+                    report.rejected(), duplicateCount[0]),
+                    () -> String.join("\n", report.rejectedSamples()), KattyError.NOTHING_IMPORTED);
+        }
+
+        sortTasks();
+        saveChanges(imported.stream().map(TaskManager::added).toList());
+        return new KattyResult(true, String.format("I've imported %d tasks, skipping %d rows and %d duplicates!",
+                imported.size(), report.rejected(), duplicateCount[0]),
+                () -> String.join("\n", report.rejectedSamples()), null);
+    }
+
+    /**
+     * Exports all tasks to a CSV or iCalendar file.
+     *
+     * @param file the file to write
+     * @return success of operation
+     */
+    public KattyResult exportTasks(Path file) {
+        reloadIfStale();
+        try {
+            TaskTransfer.exportFile(file, tasks);
+            return new KattyResult(true, String.format("I've exported %d tasks!", tasks.size()),
+                    file::toString, null);
+        } catch (IOException e) {
+            return new KattyResult(false, "I couldn't write that file!", "", KattyError.FAIL_TO_TRANSFER);
+        }
     }
 }
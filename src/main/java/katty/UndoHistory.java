@@ -0,0 +1,338 @@
+package katty;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import katty.storage.ChangeLog;
+
+/**
+ * Remembers the last changes made by commands, so they can be undone and redone.
+ * <p>
+ * A change is kept as the {@link ChangeLog} records its command logged, per task list,
+ * rather than as a copy of the list. Undoing applies the inverse records, and redoing
+ * applies the records again. Both match tasks by their save file line, so they still
+ * work after other changes to the list, and skip tasks that are gone.
+ * </p>
+ * <p>
+ * A removed line can be noted with the task number it had, as a {@value #POSITION} record
+ * before it, so undoing puts the task back under the same number. These notes are only
+ * kept here, never in the change log.
+ * </p>
+ * <p>
+ * Everything a command changes, across lists and within a {@code batch}, is one change.
+ * At most {@value #MAX_CHANGES} changes are kept, oldest dropped first.
+ * </p>
+ * <p>
+ * A history given a journal file lasts across runs of Katty. Each change is appended to it
+ * as a {@code c command} line, then an {@code l list} line and {@code r record} lines per list,
+ * and each undo and redo as a {@code <} or {@code >} line. The journal is replayed when the
+ * history is created, and rewritten with only the changes still kept then and whenever it
+ * has grown to twice that size.
+ * </p>
+ */
+public class UndoHistory {
+    public static final int MAX_CHANGES = 50;
+    /** Starts a record of the task number of the record after it, such as {@code @3}. */
+    public static final char POSITION = '@';
+    private static final char COMMAND = 'c';
+    private static final char LIST = 'l';
+    private static final char RECORD = 'r';
+    private static final char UNDONE = '<';
+    private static final char REDONE = '>';
+
+    private final Deque<Change> undoable = new ArrayDeque<>();
+    private final Deque<Change> redoable = new ArrayDeque<>();
+    private final Path journal;
+    private int compactedLines = 0;
+    private int appendedLines = 0;
+    private List<Step> recording;
+
+    /**
+     * Creates a history that only lasts until Katty exits.
+     */
+    public UndoHistory() {
+        this.journal = null;
+    }
+
+    /**
+     * Creates a history kept in a journal file, starting with the changes it holds.
+     * <p>
+     * A journal that cannot be read starts an empty history, and one that cannot be
+     * written keeps the changes only until Katty exits.
+     * </p>
+     *
+     * @param journal the journal file, which is created with the first change
+     */
+    public UndoHistory(Path journal) {
+        this.journal = journal;
+        if (Files.exists(journal)) {
+            replay();
+            compact();
+        }
+    }
+
+    /**
+     * Represents the records one task list logged for a change.
+     *
+     * @param list    the name of the task list
+     * @param records the records, as described in {@link ChangeLog}
+     */
+    public record Step(String list, List<String> records) {
+    }
+
+    /**
+     * Represents everything one command changed.
+     *
+     * @param command the command, as the user typed it
+     * @param steps   the changes to each list, in the order they were made, one per list in a row
+     */
+    public record Change(String command, List<Step> steps) {
+    }
+
+    /**
+     * Starts recording the changes of a command.
+     */
+    public void begin() {
+        recording = new ArrayList<>();
+    }
+
+    /**
+     * Records changes made to a task list, if a command is being recorded.
+     *
+     * @param list    the name of the task list
+     * @param records the records it logged
+     */
+    public void record(String list, List<String> records) {
+        if (recording == null || records.isEmpty()) {
+            return;
+        }
+        int last = recording.size() - 1;
+        if (last >= 0 && recording.get(last).list().equals(list)) {
+            List<String> merged = new ArrayList<>(recording.get(last).records());
+            merged.addAll(records);
+            recording.set(last, new Step(list, merged));
+        } else {
+            recording.add(new Step(list, List.copyOf(records)));
+        }
+    }
+
+    /**
+     * Stops recording and keeps what the command changed, which can no longer be redone past.
+     *
+     * @param command the command, as the user typed it
+     */
+    public void end(String command) {
+        List<Step> steps = recording;
+        recording = null;
+        if (steps == null || steps.isEmpty()) {
+            return;
+        }
+        Change change = new Change(command, steps);
+        keep(change);
+        List<String> lines = new ArrayList<>();
+        write(change, lines);
+        append(lines);
+    }
+
+    private void keep(Change change) {
+        redoable.clear();
+        undoable.push(change);
+        if (undoable.size() > MAX_CHANGES) {
+            undoable.removeLast();
+        }
+    }
+
+    /**
+     * Takes the last change that can be undone, which can then be redone.
+     *
+     * @return the change, or {@code null} if there is none
+     */
+    public Change takeUndo() {
+        Change change = undoable.poll();
+        if (change != null) {
+            redoable.push(change);
+            append(List.of(String.valueOf(UNDONE)));
+        }
+        return change;
+    }
+
+    /**
+     * Takes the last change that was undone, which can then be undone again.
+     *
+     * @return the change, or {@code null} if there is none
+     */
+    public Change takeRedo() {
+        Change change = redoable.poll();
+        if (change != null) {
+            undoable.push(change);
+            append(List.of(String.valueOf(REDONE)));
+        }
+        return change;
+    }
+
+    /**
+     * Reads the journal into the history, skipping lines that are not in its format.
+     */
+    private void replay() {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return;
+        }
+        String command = null;
+        List<Step> steps = new ArrayList<>();
+        for (String line : lines) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String text = line.length() > 1 ? line.substring(2) : "";
+            switch (line.charAt(0)) {
+            case COMMAND -> {
+                keepReplayed(command, steps);
+                command = text;
+                steps = new ArrayList<>();
+            }
+            case LIST -> {
+                if (command != null) {
+                    steps.add(new Step(text, new ArrayList<>()));
+                }
+            }
+            case RECORD -> {
+                if (!steps.isEmpty()) {
+                    steps.get(steps.size() - 1).records().add(text);
+                }
+            }
+            case UNDONE, REDONE -> {
+                keepReplayed(command, steps);
+                command = null;
+                Deque<Change> from = line.charAt(0) == UNDONE ? undoable : redoable;
+                Change change = from.poll();
+                if (change != null) {
+                    (from == undoable ? redoable : undoable).push(change);
+                }
+            }
+            default -> {
+                // Not a line this version of Katty writes
+            }
+            }
+        }
+        keepReplayed(command, steps);
+    }
+
+    private void keepReplayed(String command, List<Step> steps) {
+        List<Step> kept = steps.stream()
+                .filter(step -> !step.records().isEmpty())
+                .map(step -> new Step(step.list(), List.copyOf(step.records())))
+                .toList();
+        if (command != null && !kept.isEmpty()) {
+            keep(new Change(command, kept));
+        }
+    }
+
+    /**
+     * Rewrites the journal with only the changes kept now.
+     * <p>
+     * The changes that can be undone are written oldest first, then those that can be
+     * redone, last undone first, followed by an undo for each of them.
+     * </p>
+     */
+    private void compact() {
+        List<String> lines = new ArrayList<>();
+        Iterator<Change> oldestFirst = undoable.descendingIterator();
+        oldestFirst.forEachRemaining(change -> write(change, lines));
+        redoable.forEach(change -> write(change, lines));
+        redoable.forEach(change -> lines.add(String.valueOf(UNDONE)));
+        compactedLines = lines.size();
+        appendedLines = 0;
+        Path absolute = journal.toAbsolutePath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The journal is only longer than it needs to be
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Only a stray temporary file is left
+                }
+            }
+        }
+    }
+
+    private static void write(Change change, List<String> lines) {
+        lines.add(COMMAND + " " + change.command());
+        for (Step step : change.steps()) {
+            lines.add(LIST + " " + step.list());
+            step.records().forEach(record -> lines.add(RECORD + " " + record));
+        }
+    }
+
+    private void append(List<String> lines) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            Files.write(journal, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            return; // The change can still be undone until Katty exits
+        }
+        appendedLines += lines.size();
+        if (appendedLines > Math.max(compactedLines, MAX_CHANGES)) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the records that undo the given ones.
+     * <p>
+     * Added lines are removed and removed lines are added back, in reverse order. A
+     * replacement is undone by replacing the new line with the old one again. A task
+     * number stays in front of the record it belongs to.
+     * </p>
+     *
+     * @param records the records, as described in {@link ChangeLog}
+     * @return the inverse records
+     */
+    public static List<String> invert(List<String> records) {
+        List<String> inverse = new ArrayList<>(records.size());
+        for (int i = records.size() - 1; i >= 0; i--) {
+            String record = records.get(i);
+            String line = record.substring(1);
+            int start = inverse.size();
+            switch (record.charAt(0)) {
+            case ChangeLog.ADDED -> inverse.add(ChangeLog.REMOVED + line);
+            case ChangeLog.REMOVED -> inverse.add(ChangeLog.ADDED + line);
+            case ChangeLog.REPLACED -> {
+                if (i > 0 && records.get(i - 1).charAt(0) == ChangeLog.REMOVED) {
+                    inverse.add(ChangeLog.REMOVED + line);
+                    inverse.add(ChangeLog.REPLACED + records.get(i - 1).substring(1));
+                    i--;
+                }
+            }
+            default -> {
+                // A task number, kept with its record, or not a record this version of Katty writes
+            }
+            }
+            if (inverse.size() > start && i > 0 && records.get(i - 1).charAt(0) == POSITION) {
+                inverse.add(start, records.get(i - 1));
+                i--;
+            }
+        }
+        return inverse;
+    }
+}
@@ -0,0 +1,22 @@
+package katty.command;
+
+import katty.Katty;
+
+/**
+ * Represents a command Katty can execute, such as {@code todo} or {@code list}.
+ * <p>
+ * Commands are looked up through a {@link CommandRegistry}, which also keeps
+ * latency and error counters for every command it runs.
+ */
+@FunctionalInterface
+public interface Command {
+    /**
+     * Executes the command and renders Katty's reply.
+     *
+     * @param args   the tokenized user input
+     * @param out    the buffer to render the reply into
+     * @param format the format to render the reply in
+     * @return {@code true} if the command succeeded, {@code false} if it failed
+     */
+    boolean execute(CommandArgs args, StringBuilder out, Katty.ResponseFormat format);
+}
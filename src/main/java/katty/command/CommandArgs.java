@@ -0,0 +1,133 @@
+package katty.command;
+
+import java.util.Arrays;
+
+/**
+ * Holds a line of user input, tokenized once into a command name and argument slices.
+ * <p>
+ * Arguments are kept as offsets into the original input and only turned into
+ * strings when a command asks for them.
+ */
+public class CommandArgs {
+    private final String input;
+    private final String name;
+    private final int restStart;
+    private final int[] tokenStarts;
+    private final int[] tokenEnds;
+    private final int tokenCount;
+
+    private CommandArgs(String input, String name, int restStart, int[] tokenStarts, int[] tokenEnds,
+            int tokenCount) {
+        this.input = input;
+        this.name = name;
+        this.restStart = restStart;
+        this.tokenStarts = tokenStarts;
+        this.tokenEnds = tokenEnds;
+        this.tokenCount = tokenCount;
+    }
+
+    /**
+     * Tokenizes user input.
+     * <p>
+     * The command name is everything up to the first space, lower-cased. The arguments
+     * are the whitespace-separated tokens after it.
+     *
+     * @param input the raw user input
+     * @return the tokenized input
+     */
+    public static CommandArgs tokenize(String input) {
+        int nameEnd = input.indexOf(' ');
+        if (nameEnd < 0) {
+            return new CommandArgs(input, input.toLowerCase(), -1, new int[0], new int[0], 0);
+        }
+
+        int[] starts = new int[4];
+        int[] ends = new int[4];
+        int count = 0;
+        int i = nameEnd + 1;
+        while (i < input.length()) {
+            while (i < input.length() && Character.isWhitespace(input.charAt(i))) {
+                i++;
+            }
+            if (i == input.length()) {
+                break;
+            }
+            int start = i;
+            while (i < input.length() && !Character.isWhitespace(input.charAt(i))) {
+                i++;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = i;
+            count++;
+        }
+        return new CommandArgs(input, input.substring(0, nameEnd).toLowerCase(), nameEnd + 1, starts, ends, count);
+    }
+
+    /**
+     * Returns a copy of these arguments under a different command name.
+     *
+     * @param name the new command name
+     * @return the renamed arguments
+     */
+    public CommandArgs withName(String name) {
+        return new CommandArgs(input, name, restStart, tokenStarts, tokenEnds, tokenCount);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * Returns whether any text follows the command name.
+     *
+     * @return {@code true} if the command was given no arguments at all
+     */
+    public boolean hasRest() {
+        return restStart >= 0;
+    }
+
+    /**
+     * Returns the text after the command name exactly as it was typed.
+     *
+     * @return the raw argument text, or an empty string if there is none
+     */
+    public String getRest() {
+        return restStart >= 0 ? input.substring(restStart) : "";
+    }
+
+    public int size() {
+        return tokenCount;
+    }
+
+    /**
+     * Returns an argument token.
+     *
+     * @param i position of the token, starting from 0
+     * @return the token
+     * @throws IndexOutOfBoundsException if there is no such token
+     */
+    public String get(int i) {
+        if (i < 0 || i >= tokenCount) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return input.substring(tokenStarts[i], tokenEnds[i]);
+    }
+
+    /**
+     * Returns the raw text from an argument token to the end of the input.
+     *
+     * @param i position of the first token, starting from 0
+     * @return the remaining text, or an empty string if there is no such token
+     */
+    public String getFrom(int i) {
+        return i < tokenCount ? input.substring(tokenStarts[i]) : "";
+    }
+}
@@ -0,0 +1,151 @@
+package katty.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import katty.Katty;
+
+/**
+ * Maps command names to {@link Command} handlers.
+ * <p>
+ * Commands are found by exact name or alias through a lookup table, or by any prefix
+ * that only one command starts with through a prefix trie, so {@code del 2} runs
+ * {@code delete 2}. Every command run through the registry gets its own
+ * {@link CommandStats}.
+ * </p>
+ */
+public class CommandRegistry {
+    private final Map<String, Command> commands = new HashMap<>();
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<String, CommandStats> stats = new TreeMap<>();
+    private final TrieNode root = new TrieNode();
+
+    /**
+     * Registers a command under its name.
+     *
+     * @param name    the full name of the command, in lower case
+     * @param command the handler to run for it
+     */
+    public void register(String name, Command command) {
+        commands.put(name, command);
+        stats.put(name, new CommandStats(name));
+        addName(name, name);
+    }
+
+    /**
+     * Registers another name for an existing command.
+     *
+     * @param alias the other name, in lower case
+     * @param name  the full name of the command it stands for
+     * @throws IllegalArgumentException if no command is registered under {@code name}
+     */
+    public void alias(String alias, String name) {
+        if (!commands.containsKey(name)) {
+            throw new IllegalArgumentException("No command named " + name);
+        }
+        addName(alias, name);
+    }
+
+    private void addName(String typed, String name) {
+        names.put(typed, name);
+        TrieNode node = root;
+        for (int i = 0; i < typed.length(); i++) {
+            node = node.children.computeIfAbsent(typed.charAt(i), c -> new TrieNode());
+        }
+        node.name = name;
+    }
+
+    /**
+     * Finds the commands a typed name could stand for.
+     * <p>
+     * An exact name or alias always wins. Otherwise, every command with a name
+     * or alias starting with {@code typed} is a candidate.
+     * </p>
+     *
+     * @param typed the command name as typed, in lower case
+     * @return the full names of the candidates in alphabetical order, which is
+     *     empty for unknown commands and has more than one name for ambiguous ones
+     */
+    public List<String> resolve(String typed) {
+        String exact = names.get(typed);
+        if (exact != null) {
+            return List.of(exact);
+        }
+        if (typed.isEmpty()) {
+            return List.of();
+        }
+
+        TrieNode node = root;
+        for (int i = 0; i < typed.length() && node != null; i++) {
+            node = node.children.get(typed.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        TreeSet<String> candidates = new TreeSet<>();
+        collect(node, candidates);
+        return new ArrayList<>(candidates);
+    }
+
+    private static void collect(TrieNode node, TreeSet<String> candidates) {
+        if (node.name != null) {
+            candidates.add(node.name);
+        }
+        for (TrieNode child : node.children.values()) {
+            collect(child, candidates);
+        }
+    }
+
+    /**
+     * Runs a registered command and records its latency and outcome.
+     *
+     * @param name   the full name of the command
+     * @param args   the tokenized user input
+     * @param out    the buffer to render the reply into
+     * @param format the format to render the reply in
+     * @return {@code true} if the command succeeded
+     * @throws IllegalArgumentException if no command is registered under {@code name}
+     */
+    public boolean execute(String name, CommandArgs args, StringBuilder out, Katty.ResponseFormat format) {
+        Command command = commands.get(name);
+        if (command == null) {
+            throw new IllegalArgumentException("No command named " + name);
+        }
+
+        long start = System.nanoTime();
+        boolean isSuccess = false;
+        try {
+            isSuccess = command.execute(args.withName(name), out, format);
+            return isSuccess;
+        } finally {
+            stats.get(name).record(System.nanoTime() - start, isSuccess);
+        }
+    }
+
+    /**
+     * Returns the names of all registered commands, without aliases.
+     *
+     * @return the command names in alphabetical order
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(stats.keySet());
+    }
+
+    /**
+     * Returns the counters of every registered command.
+     *
+     * @return the counters in alphabetical order of command name
+     */
+    public List<CommandStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new TreeMap<>();
+        private String name;
+    }
+}
@@ -0,0 +1,51 @@
+package katty.command;
+
+/**
+ * Keeps the latency and error counters of a single command.
+ */
+public class CommandStats {
+    private final String name;
+    private long invocations;
+    private long errors;
+    private long totalNanos;
+    private long maxNanos;
+
+    CommandStats(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long nanos, boolean isSuccess) {
+        invocations++;
+        if (!isSuccess) {
+            errors++;
+        }
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized long getInvocations() {
+        return invocations;
+    }
+
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    public synchronized long getAverageNanos() {
+        return invocations == 0 ? 0 : totalNanos / invocations;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d runs, %d errors, avg %.1f us, max %.1f us",
+                name, invocations, errors, getAverageNanos() / 1e3, maxNanos / 1e3);
+    }
+}
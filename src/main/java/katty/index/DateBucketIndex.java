@@ -0,0 +1,253 @@
+package katty.index;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import katty.TaskListener;
+import katty.task.Deadline;
+import katty.task.Event;
+import katty.task.RecurringTask;
+import katty.task.Task;
+
+/**
+ * Files deadlines and events under the days they fall on, for the {@code today},
+ * {@code tomorrow}, {@code week} and {@code overdue} views.
+ * <p>
+ * Every dated task gets a small integer id and is listed in one bucket per day it
+ * touches, keyed by epoch day, so a deadline sits in a single bucket and an event in
+ * every day it spans. A view only walks the buckets of the days it covers. Whether a
+ * task is complete is kept in a bitmap indexed by id, so completed tasks are skipped
+ * with a bit test instead of asking each task.
+ * </p>
+ * <p>
+ * An event longer than {@value #MAX_SPAN_DAYS} days is not spread over buckets, it is kept
+ * in a short list of long events that every view checks for overlap, so a multi-year event
+ * costs one entry. Incomplete tasks are also filed under the day they are due or end alone,
+ * which {@code overdue} walks up to today, so it only meets tasks it returns and those due later today.
+ * An event is only overdue once it has ended, not while it is still going on.
+ * </p>
+ * <p>
+ * A {@link RecurringTask} repeats forever and has no fixed days, so recurring tasks are
+ * kept aside and their occurrences are computed lazily for the days being viewed.
+ * </p>
+ */
+public class DateBucketIndex implements TaskListener {
+    public static final int MAX_SPAN_DAYS = 31;
+
+    private final NavigableMap<Long, IntList> buckets = new TreeMap<>();
+    private final IntList longEvents = new IntList();
+    private final NavigableMap<Long, IntList> pendingByEnd = new TreeMap<>();
+    private final Map<Task, Integer> ids = new IdentityHashMap<>();
+    private final List<Task> tasks = new ArrayList<>();
+    private final IntList freeIds = new IntList();
+    private final BitSet complete = new BitSet();
+    private final Set<RecurringTask> recurringTasks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    @Override
+    public void taskAdded(Task task) {
+        if (task instanceof RecurringTask recurringTask) {
+            recurringTasks.add(recurringTask);
+            return;
+        }
+        LocalDateTime[] span = spanOf(task);
+        if (span == null) {
+            return;
+        }
+
+        int id = freeIds.isEmpty() ? tasks.size() : freeIds.values[--freeIds.size];
+        if (id == tasks.size()) {
+            tasks.add(task);
+        } else {
+            tasks.set(id, task);
+        }
+        ids.put(task, id);
+        complete.set(id, task.isComplete());
+        if (!task.isComplete()) {
+            pendingByEnd.computeIfAbsent(endDay(span), d -> new IntList()).add(id);
+        }
+        if (isLong(span)) {
+            longEvents.add(id);
+            return;
+        }
+        for (long day = startDay(span); day <= endDay(span); day++) {
+            buckets.computeIfAbsent(day, d -> new IntList()).add(id);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        if (task instanceof RecurringTask) {
+            recurringTasks.remove(task);
+            return;
+        }
+        Integer id = ids.remove(task);
+        if (id == null) {
+            return;
+        }
+
+        LocalDateTime[] span = spanOf(task);
+        if (!complete.get(id)) {
+            removeFrom(pendingByEnd, endDay(span), id);
+        }
+        if (isLong(span)) {
+            longEvents.remove(id);
+        } else {
+            for (long day = startDay(span); day <= endDay(span); day++) {
+                removeFrom(buckets, day, id);
+            }
+        }
+        tasks.set(id, null);
+        complete.clear(id);
+        freeIds.add(id);
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        Integer id = ids.get(task);
+        if (id == null || complete.get(id) == task.isComplete()) {
+            return;
+        }
+        complete.set(id, task.isComplete());
+        long endDay = endDay(spanOf(task));
+        if (task.isComplete()) {
+            removeFrom(pendingByEnd, endDay, id);
+        } else {
+            pendingByEnd.computeIfAbsent(endDay, d -> new IntList()).add(id);
+        }
+    }
+
+    private static void removeFrom(NavigableMap<Long, IntList> days, long day, int id) {
+        IntList bucket = days.get(day);
+        bucket.remove(id);
+        if (bucket.isEmpty()) {
+            days.remove(day);
+        }
+    }
+
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        buckets.clear();
+        longEvents.size = 0;
+        pendingByEnd.clear();
+        ids.clear();
+        this.tasks.clear();
+        freeIds.size = 0;
+        complete.clear();
+        recurringTasks.clear();
+        tasks.forEach(this::taskAdded);
+    }
+
+    /**
+     * Returns the incomplete tasks that are due or take place on any of the given days.
+     *
+     * @param from the first day
+     * @param to   the last day, inclusive
+     * @return the tasks, earliest first
+     */
+    public List<Task> between(LocalDate from, LocalDate to) {
+        List<Task> found = new ArrayList<>();
+        BitSet seen = new BitSet();
+        for (IntList bucket : buckets.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+            for (int i = 0; i < bucket.size; i++) {
+                int id = bucket.values[i];
+                if (!complete.get(id) && !seen.get(id)) {
+                    seen.set(id);
+                    found.add(tasks.get(id));
+                }
+            }
+        }
+        for (int i = 0; i < longEvents.size; i++) {
+            int id = longEvents.values[i];
+            LocalDateTime[] span = spanOf(tasks.get(id));
+            if (!complete.get(id) && startDay(span) <= to.toEpochDay() && endDay(span) >= from.toEpochDay()) {
+                found.add(tasks.get(id));
+            }
+        }
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        for (RecurringTask task : recurringTasks) {
+            Iterator<RecurringTask.Occurrence> occurrences = task.occurrences(start);
+            while (occurrences.hasNext()) {
+                RecurringTask.Occurrence occurrence = occurrences.next();
+                if (!occurrence.start().isBefore(end)) {
+                    break;
+                }
+                if (!task.isDone(occurrence)) {
+                    found.add(task);
+                    break;
+                }
+            }
+        }
+
+        found.sort(Comparator.comparing(Task::getSortDate));
+        return found;
+    }
+
+    /**
+     * Returns the incomplete tasks that were due or ended before a point in time.
+     *
+     * @param now the point in time
+     * @return the overdue tasks, most overdue first
+     */
+    public List<Task> overdue(LocalDateTime now) {
+        Map<Task, LocalDateTime> found = new IdentityHashMap<>();
+        for (IntList bucket : pendingByEnd.headMap(now.toLocalDate().toEpochDay(), true).values()) {
+            for (int i = 0; i < bucket.size; i++) {
+                Task task = tasks.get(bucket.values[i]);
+                LocalDateTime due = spanOf(task)[1];
+                if (due.isBefore(now)) {
+                    found.put(task, due);
+                }
+            }
+        }
+
+        for (RecurringTask task : recurringTasks) {
+            RecurringTask.Occurrence pending = task.getNextPending();
+            LocalDateTime due = pending == null ? null : pending.end() != null ? pending.end() : pending.start();
+            if (due != null && due.isBefore(now)) {
+                found.put(task, due);
+            }
+        }
+
+        List<Task> overdue = new ArrayList<>(found.keySet());
+        overdue.sort(Comparator.comparing(found::get));
+        return overdue;
+    }
+
+    private static long startDay(LocalDateTime[] span) {
+        return span[0].toLocalDate().toEpochDay();
+    }
+
+    private static long endDay(LocalDateTime[] span) {
+        return span[1].toLocalDate().toEpochDay();
+    }
+
+    private static boolean isLong(LocalDateTime[] span) {
+        return endDay(span) - startDay(span) >= MAX_SPAN_DAYS;
+    }
+
+    /**
+     * Returns when a task starts and ends, or {@code null} if it has no date.
+     */
+    private static LocalDateTime[] spanOf(Task task) {
+        if (task instanceof Event event) {
+            return new LocalDateTime[]{event.getSortDate(), event.getTimeTo()};
+        }
+        if (task instanceof Deadline deadline) {
+            return new LocalDateTime[]{deadline.getSortDate(), deadline.getSortDate()};
+        }
+        return null;
+    }
+}
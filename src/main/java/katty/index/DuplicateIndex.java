@@ -0,0 +1,204 @@
+package katty.index;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import katty.TaskListener;
+import katty.task.Task;
+
+/**
+ * Tells in constant time whether a task list already holds a task like a given one.
+ * <p>
+ * Two tasks are alike if they have the same type, the same name ignoring case and spacing,
+ * and the same dates, whether or not they are done. Each task is reduced to a key text of
+ * those, counted in an open-addressing table under its 64-bit FNV-1a hash. A slot only
+ * matches if its key text is equal too, so tasks whose hashes collide are never taken
+ * for each other. The index holds on to no task, only the key texts, so it stays small
+ * in memory-bounded mode too.
+ * </p>
+ * <p>
+ * The index follows the task list through {@link TaskListener}. When the whole list is
+ * reloaded, it is only rebuilt from the list the next time it is asked.
+ * </p>
+ */
+public class DuplicateIndex implements TaskListener {
+    private static final String SEPARATOR = " | ";
+
+    private final Supplier<List<Task>> source;
+    private final ToLongFunction<String> hasher;
+    private long[] hashes = new long[16];
+    private String[] texts = new String[16];
+    private int[] counts = new int[16];
+    private int used = 0;
+    private boolean isStale = true;
+
+    /**
+     * Creates an index of a task list.
+     *
+     * @param source returns the current task list, to rebuild the index from
+     */
+    public DuplicateIndex(Supplier<List<Task>> source) {
+        this(source, DuplicateIndex::hash);
+    }
+
+    /**
+     * Creates an index of a task list that hashes key texts with the given function, so
+     * tests can make hashes collide.
+     */
+    DuplicateIndex(Supplier<List<Task>> source, ToLongFunction<String> hasher) {
+        this.source = source;
+        this.hasher = hasher;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        if (!isStale) {
+            add(keyOf(task), 1);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        if (!isStale) {
+            add(keyOf(task), -1);
+        }
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        // Only the completion status changed, which is not part of the key.
+    }
+
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        isStale = true;
+    }
+
+    /**
+     * Tells whether the list holds a task like the given one.
+     *
+     * @param task a task that is not in the list
+     * @return {@code true} if it would be a duplicate
+     */
+    public boolean contains(Task task) {
+        if (isStale) {
+            rebuild();
+        }
+        String text = keyOf(task);
+        return counts[slotOf(hasher.applyAsLong(text), text)] > 0;
+    }
+
+    private void rebuild() {
+        List<Task> tasks = source.get();
+        int capacity = 16;
+        while (capacity < tasks.size() * 2) {
+            capacity <<= 1;
+        }
+        hashes = new long[capacity];
+        texts = new String[capacity];
+        counts = new int[capacity];
+        used = 0;
+        for (Task task : tasks) {
+            add(keyOf(task), 1);
+        }
+        isStale = false;
+    }
+
+    private void add(String text, int delta) {
+        long hash = hasher.applyAsLong(text);
+        int slot = slotOf(hash, text);
+        if (texts[slot] == null) {
+            if (delta < 0) {
+                return;
+            }
+            hashes[slot] = hash;
+            texts[slot] = text;
+            used++;
+        }
+        counts[slot] += delta;
+        if (used * 2 > texts.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Doubles the table, leaving out keys no task has any more.
+     */
+    private void grow() {
+        long[] oldHashes = hashes;
+        String[] oldTexts = texts;
+        int[] oldCounts = counts;
+        hashes = new long[oldTexts.length * 2];
+        texts = new String[oldTexts.length * 2];
+        counts = new int[oldTexts.length * 2];
+        used = 0;
+        for (int i = 0; i < oldTexts.length; i++) {
+            if (oldCounts[i] > 0) {
+                int slot = slotOf(oldHashes[i], oldTexts[i]);
+                hashes[slot] = oldHashes[i];
+                texts[slot] = oldTexts[i];
+                counts[slot] = oldCounts[i];
+                used++;
+            }
+        }
+    }
+
+    /**
+     * Finds the slot holding a key text, or the empty slot where it would go.
+     */
+    private int slotOf(long hash, String text) {
+        int mask = texts.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (texts[slot] != null && (hashes[slot] != hash || !texts[slot].equals(text))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the type, name and dates of a task as one text, equal for tasks that are alike.
+     * <p>
+     * The fields are taken from the save file line, leaving out whether the task is done
+     * and, for a recurring task, which occurrences are. The name is lowercased and its
+     * runs of spaces count as one.
+     * </p>
+     *
+     * @param task the task
+     * @return the key text
+     */
+    public static String keyOf(Task task) {
+        String[] fields = task.toFileString().split(" \\| ", -1);
+        int end = fields[0].equals("R") ? fields.length - 1 : fields.length;
+        StringBuilder key = new StringBuilder(fields[0]).append(SEPARATOR);
+        String name = task.getTaskName().strip();
+        boolean isSpace = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) {
+                isSpace = true;
+                continue;
+            }
+            if (isSpace) {
+                key.append(' ');
+                isSpace = false;
+            }
+            key.append(Character.toLowerCase(c));
+        }
+        for (int i = 3; i < end; i++) {
+            key.append(SEPARATOR).append(fields[i]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Hashes a key text with 64-bit FNV-1a.
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
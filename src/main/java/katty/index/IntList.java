@@ -0,0 +1,49 @@
+package katty.index;
+
+import java.util.Arrays;
+
+/**
+ * Holds a growable list of {@code int} ids without boxing them.
+ */
+class IntList {
+    int[] values = new int[4];
+    int size = 0;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Appends every id of another list, shifted by an offset.
+     */
+    void addAll(IntList other, int offset) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+        }
+        for (int i = 0; i < other.size; i++) {
+            values[size++] = other.values[i] + offset;
+        }
+    }
+
+    /**
+     * Removes one occurrence of an id by moving the last id into its place, so the order is not kept.
+     *
+     * @return {@code true} if the id was found
+     */
+    boolean remove(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                values[i] = values[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
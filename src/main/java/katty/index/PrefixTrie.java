@@ -0,0 +1,319 @@
+package katty.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import katty.TaskListener;
+import katty.task.Task;
+
+/**
+ * Completes task names from the start of any of their words.
+ * <p>
+ * Every task name is lowercased, its runs of spaces count as one, and it is kept in a
+ * compressed prefix trie once from the start of each word, e.g. {@code read book} under
+ * {@code read book} and {@code book}. Completing a prefix walks down to where it ends and
+ * takes the first tasks below in alphabetical order, so it costs the length of the prefix
+ * plus the few nodes visited, however many tasks there are.
+ * </p>
+ * <p>
+ * A node does not copy the characters leading to it, it points at them in the name of a task
+ * below it, so each task adds one string however many words it has. The trie follows the task
+ * list through {@link TaskListener}, adding or removing only the keys of the task that changed,
+ * and is rebuilt in parallel when the whole list is reloaded. It is not thread-safe, so callers
+ * share one lock between changes and lookups.
+ * </p>
+ */
+public class PrefixTrie implements TaskListener {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private Node root = new Node("", 0, 0);
+
+    @Override
+    public void taskAdded(Task task) {
+        String name = normalize(task.getTaskName(), false);
+        for (int from : wordStarts(name)) {
+            add(root, name, from, task);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        String name = normalize(task.getTaskName(), false);
+        for (int from : wordStarts(name)) {
+            remove(root, name, from, task);
+        }
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        // Only the completion status changed, the name is still indexed correctly.
+    }
+
+    /**
+     * Rebuilds the trie, with the keys starting with each character put in their own branch in parallel.
+     */
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        Map<Character, List<Key>> byFirst = tasks.parallelStream()
+                .flatMap(task -> {
+                    String name = normalize(task.getTaskName(), false);
+                    return Arrays.stream(wordStarts(name)).mapToObj(from -> new Key(name, from, task));
+                })
+                .collect(Collectors.groupingBy(key -> key.name().charAt(key.from())));
+        Node rebuilt = new Node("", 0, 0);
+        rebuilt.children = byFirst.values().parallelStream()
+                .map(keys -> {
+                    Node branch = new Node("", 0, 0);
+                    keys.forEach(key -> add(branch, key.name(), key.from(), key.task()));
+                    return branch.children[0];
+                })
+                .sorted(Comparator.comparing(node -> node.charAt(0)))
+                .toArray(Node[]::new);
+        root = rebuilt;
+    }
+
+    /**
+     * Returns tasks with a word in their name that starts with the prefix, and everything after it too.
+     *
+     * @param prefix what has been typed, in any case
+     * @param limit  the most tasks to return
+     * @return the tasks in alphabetical order of the matching part of their names
+     */
+    public List<Task> complete(String prefix, int limit) {
+        // A trailing space is kept, so "read " no longer completes "reading"
+        String key = normalize(prefix, true);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            int at = node.indexOf(key.charAt(matched));
+            if (at < 0) {
+                return List.of();
+            }
+            node = node.children[at];
+            int common = node.commonLength(key, matched);
+            if (matched + common < key.length() && common < node.length()) {
+                return List.of();
+            }
+            matched += common;
+        }
+        Set<Task> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Task> ordered = new ArrayList<>(limit);
+        collect(node, limit, found, ordered);
+        return ordered;
+    }
+
+    private static void collect(Node node, int limit, Set<Task> found, List<Task> ordered) {
+        if (node.tasks != null) {
+            for (Task task : node.tasks) {
+                if (ordered.size() == limit) {
+                    return;
+                }
+                if (found.add(task)) {
+                    ordered.add(task);
+                }
+            }
+        }
+        for (Node child : node.children) {
+            if (ordered.size() == limit) {
+                return;
+            }
+            collect(child, limit, found, ordered);
+        }
+    }
+
+    /**
+     * Adds a task under its normalized name from a word start on.
+     */
+    private static void add(Node node, String name, int from, Task task) {
+        int i = from;
+        while (i < name.length()) {
+            int at = node.indexOf(name.charAt(i));
+            if (at < 0) {
+                Node leaf = new Node(name, i, name.length());
+                leaf.tasks = new Task[]{task};
+                node.insert(-at - 1, leaf);
+                return;
+            }
+            Node child = node.children[at];
+            int common = child.commonLength(name, i);
+            if (common < child.length()) {
+                Node middle = new Node(child.text, child.start, child.start + common);
+                child.start += common;
+                middle.children = new Node[]{child};
+                node.children[at] = middle;
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.tasks == null) {
+            node.tasks = new Task[]{task};
+        } else {
+            node.tasks = Arrays.copyOf(node.tasks, node.tasks.length + 1);
+            node.tasks[node.tasks.length - 1] = task;
+        }
+    }
+
+    /**
+     * Removes a task from under its name from a position on, dropping nodes left empty
+     * and merging a node left with a single child into it.
+     *
+     * @return {@code true} if the node holds nothing any more
+     */
+    private static boolean remove(Node node, String name, int i, Task task) {
+        if (i == name.length()) {
+            int t = 0;
+            while (node.tasks != null && t < node.tasks.length && node.tasks[t] != task) {
+                t++;
+            }
+            if (node.tasks != null && t < node.tasks.length) {
+                Task[] left = new Task[node.tasks.length - 1];
+                System.arraycopy(node.tasks, 0, left, 0, t);
+                System.arraycopy(node.tasks, t + 1, left, t, left.length - t);
+                node.tasks = left.length == 0 ? null : left;
+            }
+        } else {
+            int at = node.indexOf(name.charAt(i));
+            if (at < 0 || node.children[at].commonLength(name, i) < node.children[at].length()) {
+                return false;
+            }
+            Node child = node.children[at];
+            if (remove(child, name, i + child.length(), task)) {
+                node.removeChild(at);
+            } else if (child.tasks == null && child.children.length == 1) {
+                // The text of the only child spells the whole path to it, so its label just starts earlier
+                Node only = child.children[0];
+                only.start -= child.length();
+                node.children[at] = only;
+            }
+        }
+        return node.tasks == null && node.children.length == 0;
+    }
+
+    /**
+     * Returns where each word of a normalized name starts.
+     */
+    private static int[] wordStarts(String name) {
+        return IntStream.range(0, name.length())
+                .filter(i -> i == 0 || name.charAt(i - 1) == ' ')
+                .toArray();
+    }
+
+    /**
+     * Lowercases text, drops spaces before it and turns each run of spaces into one.
+     */
+    private static String normalize(String text, boolean isTrailingSpaceKept) {
+        StringBuilder key = new StringBuilder(text.length());
+        boolean isSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                isSpace = true;
+                continue;
+            }
+            if (isSpace && key.length() > 0) {
+                key.append(' ');
+            }
+            isSpace = false;
+            key.append(c);
+        }
+        if (isSpace && isTrailingSpaceKept && key.length() > 0) {
+            key.append(' ');
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(String name, int from, Task task) {
+    }
+
+    /**
+     * Represents a point in the trie, reached from its parent by a label of one or more characters.
+     * <p>
+     * The label is {@code text} from {@code start} to {@code end}, where {@code text} is the
+     * normalized name of a task below the node.
+     * </p>
+     */
+    private static class Node {
+        private final String text;
+        private int start;
+        private final int end;
+        private Node[] children = NO_CHILDREN;
+        /** The tasks whose key ends here, oldest first, or {@code null} if none. */
+        private Task[] tasks;
+
+        private Node(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        private int length() {
+            return end - start;
+        }
+
+        private char charAt(int i) {
+            return text.charAt(start + i);
+        }
+
+        /**
+         * Counts how many characters of the label match a key from a position on.
+         */
+        private int commonLength(String key, int from) {
+            int length = Math.min(length(), key.length() - from);
+            int i = 0;
+            while (i < length && charAt(i) == key.charAt(from + i)) {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Finds the child whose label starts with a character, keeping children sorted by it.
+         *
+         * @return its position, or {@code -(insertion point) - 1} if there is none
+         */
+        private int indexOf(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = children[mid].charAt(0);
+                if (first < c) {
+                    low = mid + 1;
+                } else if (first > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insert(int at, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+        }
+
+        private void removeChild(int at) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, at);
+            System.arraycopy(children, at + 1, shrunk, at, children.length - at - 1);
+            children = shrunk;
+        }
+    }
+}
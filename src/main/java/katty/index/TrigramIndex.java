@@ -0,0 +1,282 @@
+package katty.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import katty.TaskListener;
+import katty.task.Task;
+
+/**
+ * Finds tasks by name while tolerating typos.
+ * <p>
+ * Every word of a task name is padded and cut into trigrams, e.g. {@code book} into
+ * {@code "  b", " bo", "boo", "ook", "ok "}, and each trigram maps to the tasks containing it.
+ * A search only looks at tasks sharing at least one trigram with the query, scores them by
+ * how many of the query's trigrams they share and by edit distance, and keeps the best
+ * {@code k} in a bounded heap instead of sorting every candidate. Overlaps are counted in
+ * an array kept between searches, and only the entries a search touched are cleared after it,
+ * so a search costs as much as the postings it reads rather than the size of the list.
+ * </p>
+ * <p>
+ * A typo in a short word leaves it few trigrams to share, e.g. {@code raed} only shares
+ * {@code "  r"} with {@code read}, so queries shorter than {@value #SHORT_QUERY} characters
+ * are scored by edit distance alone.
+ * </p>
+ * <p>
+ * The index follows the task list through {@link TaskListener}, and is rebuilt from
+ * per-thread partial indexes in parallel when the whole list is reloaded or when
+ * more than half of it has been deleted.
+ * </p>
+ */
+public class TrigramIndex implements TaskListener {
+    /** Matches scoring below this are dropped, 1 being an exact match. */
+    public static final double MIN_SCORE = 0.5;
+    /** Queries shorter than this are scored by edit distance alone. */
+    public static final int SHORT_QUERY = 5;
+
+    private Postings index = new Postings();
+    private int[] overlaps = new int[0];
+
+    /**
+     * Represents a task found by {@link #search(String, int)}.
+     *
+     * @param task  the task
+     * @param score how well it matches, between {@value #MIN_SCORE} and 1
+     */
+    public record Match(Task task, double score) {
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        index.add(task, trigramsOf(task.getTaskName()));
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        index.remove(task);
+        if (index.removed > index.ids.size()) {
+            tasksReloaded(index.liveTasks());
+        }
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        // Only the completion status changed, the name is still indexed correctly.
+    }
+
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        long[][] grams = tasks.parallelStream()
+                .map(task -> trigramsOf(task.getTaskName()))
+                .toArray(long[][]::new);
+        index = IntStream.range(0, tasks.size()).parallel()
+                .collect(Postings::new, (postings, i) -> postings.add(tasks.get(i), grams[i]), Postings::merge);
+    }
+
+    /**
+     * Returns the tasks whose names best match a query.
+     * <p>
+     * Candidates are scored in order of how many trigrams they share with the query,
+     * so the search can stop as soon as no remaining candidate could make the top {@code k}.
+     * Short queries are scored by edit distance alone, so every candidate is scored.
+     * </p>
+     *
+     * @param query the text to look for, possibly misspelt
+     * @param k     the maximum number of tasks to return
+     * @return up to {@code k} matches, best first
+     */
+    public List<Match> search(String query, int k) {
+        long[] queryGrams = trigramsOf(query);
+        if (overlaps.length < index.tasks.size()) {
+            overlaps = new int[Math.max(index.tasks.size(), overlaps.length * 2)];
+        }
+        IntList touched = new IntList();
+        for (long gram : queryGrams) {
+            IntList ids = index.postings.get(gram);
+            for (int i = 0; ids != null && i < ids.size; i++) {
+                if (overlaps[ids.values[i]]++ == 0) {
+                    touched.add(ids.values[i]);
+                }
+            }
+        }
+
+        IntList[] byOverlap = new IntList[queryGrams.length + 1];
+        for (int i = 0; i < touched.size; i++) {
+            int id = touched.values[i];
+            if (index.tasks.get(id) != null) {
+                if (byOverlap[overlaps[id]] == null) {
+                    byOverlap[overlaps[id]] = new IntList();
+                }
+                byOverlap[overlaps[id]].add(id);
+            }
+            overlaps[id] = 0;
+        }
+
+        String normalized = String.join(" ", wordsOf(query));
+        boolean isShort = normalized.length() < SHORT_QUERY;
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingDouble(Match::score));
+        for (int overlap = queryGrams.length; overlap > 0; overlap--) {
+            double shared = (double) overlap / queryGrams.length;
+            double bound = isShort ? 1 : (shared + 1) / 2;
+            if (bound < MIN_SCORE || best.size() == k && bound <= best.peek().score()) {
+                break; // Not even an exact spelling could make up for sharing this few trigrams
+            }
+            IntList ids = byOverlap[overlap];
+            for (int i = 0; ids != null && i < ids.size; i++) {
+                Task task = index.tasks.get(ids.values[i]);
+                double similarity = similarity(normalized, task.getTaskName());
+                double score = isShort ? similarity : (shared + similarity) / 2;
+                if (score < MIN_SCORE) {
+                    continue;
+                }
+                best.add(new Match(task, score));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(Comparator.comparingDouble(Match::score).reversed());
+        return matches;
+    }
+
+    public int size() {
+        return index.ids.size();
+    }
+
+    /**
+     * Scores how close a normalized query is to the closest run of words in a task name.
+     *
+     * @return 1 minus the edit distance relative to the longer string, so 1 is an exact match
+     */
+    private static double similarity(String query, String name) {
+        List<String> words = wordsOf(name);
+        int width = Math.max(1, (int) query.chars().filter(c -> c == ' ').count() + 1);
+        double best = 0;
+        for (int i = 0; i + width <= Math.max(width, words.size()); i++) {
+            String window = String.join(" ", words.subList(i, Math.min(words.size(), i + width)));
+            int longest = Math.max(query.length(), window.length());
+            if (longest == 0) {
+                continue;
+            }
+            best = Math.max(best, 1 - (double) editDistance(query, window) / longest);
+        }
+        return best;
+    }
+
+    /**
+     * Counts the insertions, deletions, substitutions and swaps of adjacent
+     * characters needed to turn one string into the other.
+     */
+    static int editDistance(String a, String b) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Splits text into lower case words of letters and digits.
+     */
+    private static List<String> wordsOf(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the distinct trigrams of every word in the text, each packed into a {@code long}.
+     */
+    static long[] trigramsOf(String text) {
+        List<String> words = wordsOf(text);
+        long[] grams = new long[words.stream().mapToInt(w -> w.length() + 1).sum()];
+        int n = 0;
+        for (String word : words) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams[n++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16)
+                        | padded.charAt(i + 2);
+            }
+        }
+        return Arrays.stream(grams, 0, n).sorted().distinct().toArray();
+    }
+
+    /**
+     * Maps trigrams to the ids of the tasks containing them.
+     * <p>
+     * A removed task only leaves a gap in {@code tasks}, its ids stay in the posting
+     * lists until the index is rebuilt. During a parallel rebuild each thread fills
+     * its own {@code Postings} for a run of ids, which are then appended in order.
+     * </p>
+     */
+    private static class Postings {
+        private final List<Task> tasks = new ArrayList<>();
+        private final Map<Task, Integer> ids = new IdentityHashMap<>();
+        private final Map<Long, IntList> postings = new HashMap<>();
+        private int removed = 0;
+
+        private void add(Task task, long[] grams) {
+            int id = tasks.size();
+            tasks.add(task);
+            ids.put(task, id);
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new IntList()).add(id);
+            }
+        }
+
+        private void remove(Task task) {
+            Integer id = ids.remove(task);
+            if (id != null) {
+                tasks.set(id, null);
+                removed++;
+            }
+        }
+
+        private List<Task> liveTasks() {
+            return tasks.stream().filter(Objects::nonNull).toList();
+        }
+
+        private void merge(Postings other) {
+            int offset = tasks.size();
+            tasks.addAll(other.tasks);
+            other.ids.forEach((task, id) -> ids.put(task, id + offset));
+            other.postings.forEach((gram, theirs) -> postings.computeIfAbsent(gram, g -> new IntList())
+                    .addAll(theirs, offset));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package katty.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores archived tasks in a compressed, append-only file.
+ * <p>
+ * Each call to {@link #append(List)} adds one GZIP member holding the tasks in save file
+ * format to the end of the file, so archiving never rewrites what is already there.
+ * The archive is never loaded as a whole, it is only streamed through when searched.
+ * </p>
+ */
+public class ArchiveStore {
+    private final Path file;
+
+    public ArchiveStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Appends tasks, given in save file format, to the archive.
+     *
+     * @param lines the tasks to archive
+     * @throws IOException if the archive could not be written
+     */
+    public void append(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)),
+                StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Streams through the archive and collects the tasks that match.
+     *
+     * @param filter decides which tasks, in save file format, to collect
+     * @return the matching tasks with their position in the archive, starting from 1
+     * @throws IOException if the archive could not be read
+     */
+    public List<Entry> find(Predicate<String> filter) throws IOException {
+        List<Entry> matches = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return matches;
+        }
+        try (BufferedReader reader = open()) {
+            String line;
+            int position = 0;
+            while ((line = reader.readLine()) != null) {
+                position++;
+                if (filter.test(line)) {
+                    matches.add(new Entry(position, line));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Removes a task from the archive.
+     * <p>
+     * This is the only operation that rewrites the archive, compacting it into a single GZIP member.
+     * </p>
+     *
+     * @param position the position of the task in the archive, starting from 1
+     * @return the removed task in save file format, or {@code null} if there is no such position
+     * @throws IOException if the archive could not be read or written
+     */
+    public String remove(int position) throws IOException {
+        if (position < 1 || !Files.exists(file)) {
+            return null;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        String removed = null;
+        try (BufferedReader reader = open();
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                     new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            String line;
+            int current = 0;
+            while ((line = reader.readLine()) != null) {
+                current++;
+                if (current == position) {
+                    removed = line;
+                } else {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        }
+
+        if (removed == null) {
+            Files.deleteIfExists(temp);
+            return null;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return removed;
+    }
+
+    private BufferedReader open() throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Represents a task in the archive along with its position.
+     */
+    public record Entry(int position, String line) {
+    }
+}
@@ -0,0 +1,409 @@
+package katty.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps numbered backups of a task list in a folder, each stored as the changes since the one before.
+ * <p>
+ * A backup is taken from the lines of the list at one point in time, and written on a thread of its
+ * own so commands never wait for it. Every backup is an object in {@code objects}, a GZIP file named
+ * by the SHA-256 hash of its content, holding either every line of the list or the lines added
+ * since the backup it names as its parent, as runs of lines to copy from the parent and lines to insert.
+ * A list that has not changed since the last backup points to the same object again, so nothing is
+ * stored twice. {@code versions.txt} lists which object holds each version.
+ * </p>
+ * <p>
+ * Every {@value #MAX_CHAIN}th backup, or one that would not be much smaller as changes, holds the
+ * whole list, so restoring a version replays fewer than {@value #MAX_CHAIN} sets of changes.
+ * </p>
+ * <p>
+ * The writer thread does not keep Katty running, so the store must be {@linkplain #close() closed}
+ * before Katty exits for the backups still being written to be kept.
+ * </p>
+ */
+public class BackupStore implements Closeable {
+    public static final int MAX_CHAIN = 16;
+    private static final String INDEX_FILE = "versions.txt";
+    private static final String OBJECTS_FOLDER = "objects";
+    private static final String FULL = "katty-backup full";
+    private static final String DELTA = "katty-backup delta ";
+    private static final char COPY = '=';
+    private static final char INSERT = '+';
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Path folder;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "katty-backups");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private List<Version> versions;
+    private int nextNumber;
+    private int pending = 0;
+    private List<String> lastLines;
+
+    /**
+     * Represents a backup.
+     *
+     * @param number   the version number, counting from 1
+     * @param time     when the lines were taken
+     * @param tasks    how many lines the list had
+     * @param snapshot the SHA-256 hash of the lines
+     * @param object   the object holding the version
+     * @param depth    how many sets of changes restoring it replays
+     */
+    public record Version(int number, Instant time, int tasks, String snapshot, String object, int depth) {
+        private String toIndexLine() {
+            return String.format("%d %d %d %s %s %d", number, time.toEpochMilli(), tasks, snapshot, object, depth);
+        }
+
+        private static Version fromIndexLine(String line) {
+            String[] fields = line.split(" ");
+            return new Version(Integer.parseInt(fields[0]), Instant.ofEpochMilli(Long.parseLong(fields[1])),
+                    Integer.parseInt(fields[2]), fields[3], fields[4], Integer.parseInt(fields[5]));
+        }
+    }
+
+    /**
+     * Opens the backups in a folder, which is created with the first backup.
+     *
+     * @param folder the folder
+     */
+    public BackupStore(Path folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Starts backing up the lines of a list as the next version.
+     *
+     * @param lines the lines of the list, which must not change afterwards
+     * @return the version once it is written
+     * @throws IOException if the earlier versions could not be read, or the store is closed
+     */
+    public synchronized CompletableFuture<Version> backup(List<String> lines) throws IOException {
+        if (writer.isShutdown()) {
+            throw new IOException("The backups are closed");
+        }
+        loadIndex();
+        int number = nextNumber++;
+        Instant time = Instant.now();
+        pending++;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return write(number, time, lines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                synchronized (this) {
+                    pending--;
+                }
+            }
+        }, writer);
+    }
+
+    /**
+     * Returns the versions written so far, oldest first.
+     *
+     * @throws IOException if the list of versions could not be read
+     */
+    public synchronized List<Version> getVersions() throws IOException {
+        loadIndex();
+        return List.copyOf(versions);
+    }
+
+    /**
+     * Returns how many backups are still being written.
+     */
+    public synchronized int getPending() {
+        return pending;
+    }
+
+    /**
+     * Rebuilds the lines of a version, once every backup started before is written.
+     *
+     * @param number the version number
+     * @return the lines, or {@code null} if there is no such version
+     * @throws IOException if an object could not be read or does not match its hash
+     */
+    public List<String> restore(int number) throws IOException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (RejectedExecutionException e) {
+            // Closed, and closing waited for every backup started before
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        Version version = null;
+        for (Version v : getVersions()) {
+            if (v.number() == number) {
+                version = v;
+            }
+        }
+        if (version == null) {
+            return null;
+        }
+        List<String> lines = rebuild(version.object());
+        if (!hash(lines).equals(version.snapshot())) {
+            throw new IOException("Version " + number + " does not match its hash");
+        }
+        return lines;
+    }
+
+    private synchronized void loadIndex() throws IOException {
+        if (versions != null) {
+            return;
+        }
+        List<Version> read = new ArrayList<>();
+        Path index = folder.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                try {
+                    read.add(Version.fromIndexLine(line));
+                } catch (RuntimeException e) {
+                    // A line cut short by a crash names no complete version
+                }
+            }
+        }
+        versions = read;
+        nextNumber = read.isEmpty() ? 1 : read.get(read.size() - 1).number() + 1;
+    }
+
+    /**
+     * Stores a version as an object, as the changes since the last version where that is worth it.
+     */
+    private Version write(int number, Instant time, List<String> lines) throws IOException {
+        Version last;
+        synchronized (this) {
+            last = versions.isEmpty() ? null : versions.get(versions.size() - 1);
+        }
+        if (last != null && lastLines == null) {
+            try {
+                lastLines = rebuild(last.object());
+            } catch (IOException e) {
+                // Starts over from the whole list rather than building on a damaged version
+                last = null;
+            }
+        }
+        String snapshot = hash(lines);
+
+        String object;
+        int depth;
+        if (last != null && last.snapshot().equals(snapshot)) {
+            object = last.object();
+            depth = last.depth();
+        } else {
+            List<String> delta = last == null || last.depth() + 1 >= MAX_CHAIN ? null : encode(lastLines, lines);
+            if (delta != null && delta.size() * 2 < lines.size()) {
+                delta.add(0, DELTA + last.object());
+                depth = last.depth() + 1;
+            } else {
+                delta = new ArrayList<>(lines.size() + 1);
+                delta.add(FULL);
+                delta.addAll(lines);
+                depth = 0;
+            }
+            object = store(delta);
+        }
+
+        Version version = new Version(number, time, lines.size(), snapshot, object, depth);
+        Files.writeString(folder.resolve(INDEX_FILE), version.toIndexLine() + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        synchronized (this) {
+            versions.add(version);
+        }
+        lastLines = lines;
+        return version;
+    }
+
+    /**
+     * Describes the lines of a list as runs copied from an earlier version of it and lines inserted.
+     * <p>
+     * Each line is looked up in the earlier version by a hash map, and a run keeps going for as long
+     * as the lines after it match too, so tasks added, removed or changed anywhere cost one run each.
+     * </p>
+     *
+     * @param base  the earlier version
+     * @param lines the lines to describe
+     * @return {@code =start count} for each run copied and {@code +line} for each line inserted
+     */
+    public static List<String> encode(List<String> base, List<String> lines) {
+        Map<String, Integer> firstIndex = new HashMap<>(base.size() * 2);
+        for (int i = base.size() - 1; i >= 0; i--) {
+            firstIndex.put(base.get(i), i);
+        }
+        List<String> ops = new ArrayList<>();
+        int runStart = -1;
+        int runLength = 0;
+        for (String line : lines) {
+            int next = runStart + runLength;
+            if (runLength > 0 && next < base.size() && base.get(next).equals(line)) {
+                runLength++;
+                continue;
+            }
+            if (runLength > 0) {
+                ops.add(String.format("%c%d %d", COPY, runStart, runLength));
+                runLength = 0;
+            }
+            Integer at = firstIndex.get(line);
+            if (at != null) {
+                runStart = at;
+                runLength = 1;
+            } else {
+                ops.add(INSERT + line);
+            }
+        }
+        if (runLength > 0) {
+            ops.add(String.format("%c%d %d", COPY, runStart, runLength));
+        }
+        return ops;
+    }
+
+    /**
+     * Rebuilds lines from the earlier version they were encoded against by {@link #encode(List, List)}.
+     *
+     * @param base the earlier version
+     * @param ops  the runs and inserted lines
+     * @return the lines
+     */
+    public static List<String> decode(List<String> base, List<String> ops) {
+        List<String> lines = new ArrayList<>(base.size());
+        for (String op : ops) {
+            if (op.charAt(0) == COPY) {
+                int space = op.indexOf(' ');
+                int start = Integer.parseInt(op.substring(1, space));
+                lines.addAll(base.subList(start, start + Integer.parseInt(op.substring(space + 1))));
+            } else {
+                lines.add(op.substring(1));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Follows the parents of an object back to a whole list, then replays the changes on top of it.
+     */
+    private List<String> rebuild(String object) throws IOException {
+        List<List<String>> deltas = new ArrayList<>();
+        List<String> content = load(object);
+        while (content.get(0).startsWith(DELTA)) {
+            deltas.add(content);
+            content = load(content.get(0).substring(DELTA.length()));
+        }
+        List<String> lines = content.subList(1, content.size());
+        for (int i = deltas.size() - 1; i >= 0; i--) {
+            List<String> delta = deltas.get(i);
+            lines = decode(lines, delta.subList(1, delta.size()));
+        }
+        return new ArrayList<>(lines);
+    }
+
+    /**
+     * Writes an object unless one with the same content exists already.
+     *
+     * @return the hash naming the object
+     */
+    private String store(List<String> content) throws IOException {
+        String name = hash(content);
+        Path objects = folder.resolve(OBJECTS_FOLDER);
+        Path file = objects.resolve(name + ".gz");
+        if (Files.exists(file)) {
+            return name;
+        }
+        Files.createDirectories(objects);
+        Path temp = Files.createTempFile(objects, name, ".tmp");
+        try {
+            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                for (String line : content) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return name;
+    }
+
+    private List<String> load(String name) throws IOException {
+        List<String> content = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                Files.newInputStream(folder.resolve(OBJECTS_FOLDER).resolve(name + ".gz"))),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                content.add(line);
+            }
+        }
+        if (content.isEmpty() || !hash(content).equals(name)) {
+            throw new IOException("Backup object " + name + " is damaged");
+        }
+        return content;
+    }
+
+    /**
+     * Hashes lines as they would be written, each followed by a line feed.
+     */
+    private static String hash(List<String> lines) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String line : lines) {
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Finishes writing the backups already started, then stops the writer thread.
+     * <p>
+     * Waits up to half a minute for the backups to be written. Versions can
+     * still be listed and restored afterwards, but no new backups can be started.
+     * </p>
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
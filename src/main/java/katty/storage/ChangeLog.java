@@ -0,0 +1,333 @@
+package katty.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shares changes to one save file between every Katty process using it.
+ * <p>
+ * Each process appends the lines it adds ({@code +line}) and removes ({@code -line})
+ * to {@code <save file>.log}, and picks up the other processes' changes by reading the
+ * log on from where it last stopped. Appending takes an exclusive {@link FileLock} on the
+ * log only for the single write, and readers take no lock at all, they just stop at the
+ * last complete line.
+ * </p>
+ * <p>
+ * A process only replaces the save file if no one appended to the log since it last read
+ * it, so a save file never lacks anyone's changes. The first process to start while no
+ * other is running, as told by a lock on {@code <save file>.lock} that every process
+ * shares, folds the log into the save file and starts a new generation of the log.
+ * </p>
+ */
+public class ChangeLog implements Closeable {
+    /** Starts a record of a line added to the save file. */
+    public static final char ADDED = '+';
+    /** Starts a record of a line removed from the save file. */
+    public static final char REMOVED = '-';
+    /** Starts a record of a line that replaces the one removed just before it, if that one was found. */
+    public static final char REPLACED = '=';
+    private static final String HEADER_FORMAT = "# katty-log %016x\n";
+    private static final int HEADER_LENGTH = String.format(HEADER_FORMAT, 0).length();
+
+    private final Path file;
+    private final Path presenceFile;
+    private final String session = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+    private FileChannel channel;
+    private FileChannel presence;
+    private FileLock presenceLock;
+    private FileLock heldLock;
+    private int lockDepth = 0;
+    private long generation;
+
+    /**
+     * Represents the changes read from the log.
+     *
+     * @param records the other processes' records, in order
+     * @param offset  where to continue reading from next time
+     * @param isReset whether the log was started over, so earlier offsets no longer apply
+     */
+    public record Tail(List<String> records, long offset, boolean isReset) {
+    }
+
+    /**
+     * Creates the change log of a save file, without opening it yet.
+     *
+     * @param saveFile the save file whose changes are logged
+     */
+    public ChangeLog(Path saveFile) {
+        this.file = saveFile.resolveSibling(saveFile.getFileName() + ".log");
+        this.presenceFile = saveFile.resolveSibling(saveFile.getFileName() + ".lock");
+    }
+
+    /**
+     * Opens the log and announces this process as a user of it.
+     *
+     * @return {@code true} if no other process is using the log, in which case it may be
+     *     {@link #reset(long)} before calling {@link #share()}
+     * @throws IOException if the log cannot be opened
+     */
+    public boolean open() throws IOException {
+        presence = FileChannel.open(presenceFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            presenceLock = presence.tryLock(0, Long.MAX_VALUE, false);
+        } catch (OverlappingFileLockException e) {
+            presenceLock = null; // Another list in this process holds it
+        }
+        boolean isAlone = presenceLock != null;
+        if (!isAlone) {
+            share(); // Waits for a process that is folding the log to finish
+        }
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        lock();
+        try {
+            if (channel.size() < HEADER_LENGTH) {
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(String.format(HEADER_FORMAT, 1).getBytes(StandardCharsets.UTF_8)), 0);
+            }
+            generation = readGeneration();
+        } finally {
+            unlock();
+        }
+        return isAlone;
+    }
+
+    /**
+     * Downgrades the lock taken by {@link #open()} so other processes can use the log too.
+     */
+    public void share() throws IOException {
+        if (presenceLock != null) {
+            presenceLock.release();
+        }
+        try {
+            presenceLock = presence.lock(0, Long.MAX_VALUE, true);
+        } catch (OverlappingFileLockException e) {
+            presenceLock = null;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns where the records of the current generation start.
+     */
+    public long getStart() {
+        return HEADER_LENGTH;
+    }
+
+    public long getEnd() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Empties the log and starts a new generation, only to be used while no other process uses it.
+     *
+     * @param generation the new generation
+     * @throws IOException if the log cannot be written
+     */
+    public void reset(long generation) throws IOException {
+        lock();
+        try {
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(String.format(HEADER_FORMAT, generation)
+                    .getBytes(StandardCharsets.UTF_8)), 0);
+            channel.force(false);
+            this.generation = generation;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Appends records to the end of the log.
+     * <p>
+     * The records are encoded before the lock is taken, so it is only held for the write.
+     * </p>
+     *
+     * @param records the records, each {@code +} or {@code -} followed by a save file line
+     * @return the end of the log after the records
+     * @throws IOException if the log cannot be written
+     */
+    public long append(List<String> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (String record : records) {
+            bytes.writeBytes((session + " " + record + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+        lock();
+        try {
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            return position;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Reads the other processes' records from an offset onwards, up to the last complete line.
+     *
+     * @param offset where to start reading
+     * @return the records and where to continue from
+     * @throws IOException if the log cannot be read
+     */
+    public Tail readFrom(long offset) throws IOException {
+        return readFrom(offset, false);
+    }
+
+    /**
+     * Reads records from an offset onwards, up to the last complete line.
+     *
+     * @param offset    where to start reading
+     * @param isOwnRead whether to include the records this process appended, to replay the log as a whole
+     * @return the records and where to continue from
+     * @throws IOException if the log cannot be read
+     */
+    public Tail readFrom(long offset, boolean isOwnRead) throws IOException {
+        if (readGeneration() != generation) {
+            generation = readGeneration();
+            return new Tail(List.of(), HEADER_LENGTH, true);
+        }
+        long end = channel.size();
+        if (offset >= end) {
+            return new Tail(List.of(), offset, false);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end - offset, Integer.MAX_VALUE));
+        while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+            // Keep reading until the buffer is full
+        }
+        byte[] bytes = buffer.array();
+        int complete = buffer.position();
+        while (complete > 0 && bytes[complete - 1] != '\n') {
+            complete--;
+        }
+
+        List<String> records = new ArrayList<>();
+        String prefix = session + " ";
+        int start = 0;
+        for (int i = 0; i < complete; i++) {
+            if (bytes[i] == '\n') {
+                String line = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+                int space = line.indexOf(' ');
+                if ((isOwnRead || !line.startsWith(prefix)) && space >= 0) {
+                    records.add(line.substring(space + 1));
+                }
+                start = i + 1;
+            }
+        }
+        return new Tail(records, offset + complete, false);
+    }
+
+    /**
+     * Replaces the save file with a new version, unless someone appended to the log since {@code end}.
+     *
+     * @param written the new version of the save file, which is deleted if it is not used
+     * @param target  the save file
+     * @param end     the end of the log that the new version includes
+     * @return {@code true} if the save file was replaced
+     * @throws IOException if the save file cannot be replaced
+     */
+    public boolean commit(Path written, Path target, long end) throws IOException {
+        lock();
+        try {
+            if (channel.size() == end && readGeneration() == generation) {
+                Files.move(written, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            }
+        } finally {
+            unlock();
+        }
+        Files.deleteIfExists(written);
+        return false;
+    }
+
+    /**
+     * Runs an action while holding the log lock, so no other process can append or commit meanwhile.
+     * <p>
+     * Only meant for rare work such as merging a save file edited by hand, since other
+     * processes wait for it.
+     * </p>
+     *
+     * @param action the action to run, which may call the other methods of this log
+     * @return what the action returned
+     * @throws IOException if the lock cannot be taken or the action fails
+     */
+    public <T> T whileLocked(IoAction<T> action) throws IOException {
+        lock();
+        try {
+            return action.run();
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Represents work that may fail with an {@link IOException}.
+     */
+    @FunctionalInterface
+    public interface IoAction<T> {
+        T run() throws IOException;
+    }
+
+    private long readGeneration() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        channel.read(header, 0);
+        String text = new String(header.array(), 0, header.position(), StandardCharsets.UTF_8);
+        try {
+            return Long.parseLong(text.substring("# katty-log ".length()).strip(), 16);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Takes the log lock, unless this process already holds it through {@link #whileLocked(IoAction)}.
+     */
+    private void lock() throws IOException {
+        if (lockDepth++ == 0) {
+            heldLock = channel.lock();
+        }
+    }
+
+    private void unlock() throws IOException {
+        if (--lockDepth == 0) {
+            heldLock.release();
+            heldLock = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (presence != null) {
+            presence.close();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package katty.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tells a listener when watched files are created or modified by anyone, this process included.
+ * <p>
+ * A {@link WatchService} watches the folder of each file on a background thread. Editors
+ * and sync tools often write a file in several steps, so changes are only passed on once
+ * the folder has been quiet for {@value #SETTLE_MILLIS} ms, once per changed file.
+ * </p>
+ */
+public class FileWatcher implements Closeable {
+    private static final long SETTLE_MILLIS = 50;
+    private final WatchService service;
+    private final Consumer<Path> listener;
+    private final Map<WatchKey, Path> folders = new HashMap<>();
+    private final Set<Path> files = new LinkedHashSet<>();
+
+    /**
+     * Creates a watcher and starts its thread.
+     *
+     * @param listener receives the absolute path of each changed file, on the watcher thread
+     * @throws IOException if the file system cannot be watched
+     */
+    public FileWatcher(Consumer<Path> listener) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.listener = listener;
+        Thread thread = new Thread(this::run, "katty-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching a file, which does not need to exist yet.
+     *
+     * @param file the file to watch
+     * @throws IOException if the folder of the file cannot be watched
+     */
+    public synchronized void watch(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath().normalize();
+        if (!files.add(absolute)) {
+            return;
+        }
+        Path folder = absolute.getParent();
+        if (!folders.containsValue(folder)) {
+            folders.put(folder.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY), folder);
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = service.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                changed.forEach(listener);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher was closed
+        }
+    }
+
+    private synchronized void collect(WatchKey key, Set<Path> changed) {
+        Path folder = folders.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (folder != null && event.context() instanceof Path name && files.contains(folder.resolve(name))) {
+                changed.add(folder.resolve(name));
+            }
+        }
+        key.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+}
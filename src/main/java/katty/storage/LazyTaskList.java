@@ -0,0 +1,414 @@
+package katty.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import katty.KattyException;
+import katty.task.Task;
+import katty.task.TaskParser;
+
+/**
+ * Lists the tasks of a plain text save file while only keeping a compact index of them in memory.
+ * <p>
+ * For every task the list keeps where its line is in the save file, its sort date as
+ * epoch seconds and whether it is complete, which is a few dozen bytes instead of a few
+ * hundred for the task itself. A task is only read and parsed from its line when it is
+ * asked for, and then kept in a shared {@link TaskCache}. Sorting by date and counting
+ * completed tasks use the index alone.
+ * </p>
+ * <p>
+ * Tasks that were added or changed since the list was last saved are pinned in memory
+ * until {@link #save(Path)} writes them out. Saving copies the lines of every other task
+ * as they are, without parsing them.
+ * </p>
+ */
+public class LazyTaskList extends AbstractList<Task> implements RandomAccess, Closeable {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final AtomicInteger LIST_NUMBERS = new AtomicInteger();
+
+    private final Path file;
+    private final TaskCache cache;
+    private final int number = LIST_NUMBERS.getAndIncrement();
+    private FileChannel channel;
+    private int size = 0;
+    private int nextId = 0;
+    private int[] ids = new int[16];
+    private long[] offsets = new long[16];
+    private int[] lengths = new int[16];
+    private long[] sortKeys = new long[16];
+    private final BitSet complete = new BitSet();
+    private Task[] pinned = new Task[16];
+
+    private LazyTaskList(Path file, TaskCache cache) throws IOException {
+        this.file = file;
+        this.cache = cache;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Indexes a plain text save file.
+     * <p>
+     * Every line is parsed once to learn its sort date and status, and then dropped.
+     * Blank lines and lines starting with {@code #} are ignored.
+     * </p>
+     *
+     * @param file    the save file
+     * @param cache   the cache to keep tasks in once they are read
+     * @param skipped receives each line that is not a valid task
+     * @return the list of tasks in the file, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public static LazyTaskList load(Path file, TaskCache cache, Consumer<String> skipped) throws IOException {
+        LazyTaskList list = new LazyTaskList(file, cache);
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long lineStart = 0;
+        long position = 0;
+        int read;
+        while ((read = list.channel.read(buffer, position)) > 0) {
+            buffer.flip();
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    // A Windows line ending is left out of the line, since saving adds its own
+                    if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                        lineLength--;
+                    }
+                    list.index(new String(line, 0, lineLength, StandardCharsets.UTF_8), lineStart, lineLength,
+                            skipped);
+                    lineStart = position + i + 1;
+                    lineLength = 0;
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+            position += read;
+            buffer.clear();
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        if (lineLength > 0) {
+            list.index(new String(line, 0, lineLength, StandardCharsets.UTF_8), lineStart, lineLength, skipped);
+        }
+        return list;
+    }
+
+    private void index(String line, long offset, int length, Consumer<String> skipped) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return;
+        }
+        try {
+            Task task = TaskParser.fromFileString(trimmed);
+            insert(size, task, offset, length);
+        } catch (Exception e) {
+            skipped.accept(trimmed);
+        }
+    }
+
+    @Override
+    public Task get(int i) {
+        checkIndex(i);
+        if (pinned[i] != null) {
+            return pinned[i];
+        }
+        Task task = cache.get(number, ids[i]);
+        if (task == null) {
+            task = read(offsets[i], lengths[i]);
+            cache.put(number, ids[i], task, lengths[i]);
+        }
+        return task;
+    }
+
+    /**
+     * Replaces the task at a position, or marks it as changed if it is the same task.
+     */
+    @Override
+    public Task set(int i, Task task) {
+        Task previous = get(i);
+        pinned[i] = task;
+        sortKeys[i] = sortKeyOf(task);
+        complete.set(i, task.isComplete());
+        return previous;
+    }
+
+    @Override
+    public void add(int i, Task task) {
+        if (i < 0 || i > size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        insert(i, task, -1, 0);
+        pinned[i] = task;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int i) {
+        Task task = get(i);
+        cache.remove(number, ids[i]);
+        int moved = size - i - 1;
+        System.arraycopy(ids, i + 1, ids, i, moved);
+        System.arraycopy(offsets, i + 1, offsets, i, moved);
+        System.arraycopy(lengths, i + 1, lengths, i, moved);
+        System.arraycopy(sortKeys, i + 1, sortKeys, i, moved);
+        System.arraycopy(pinned, i + 1, pinned, i, moved);
+        for (int j = i; j < size - 1; j++) {
+            complete.set(j, complete.get(j + 1));
+        }
+        size--;
+        pinned[size] = null;
+        complete.clear(size);
+        modCount++;
+        return task;
+    }
+
+    /**
+     * Removes the tasks at several positions in a single pass.
+     *
+     * @param positions the positions to remove
+     */
+    public void removeAt(BitSet positions) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (positions.get(i)) {
+                cache.remove(number, ids[i]);
+                continue;
+            }
+            ids[kept] = ids[i];
+            offsets[kept] = offsets[i];
+            lengths[kept] = lengths[i];
+            sortKeys[kept] = sortKeys[i];
+            pinned[kept] = pinned[i];
+            complete.set(kept, complete.get(i));
+            kept++;
+        }
+        Arrays.fill(pinned, kept, size, null);
+        complete.clear(kept, size);
+        size = kept;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the task at a position is complete, without reading it.
+     */
+    public boolean isComplete(int i) {
+        checkIndex(i);
+        return complete.get(i);
+    }
+
+    /**
+     * Sorts the tasks by date using the index alone, keeping tasks with the same date in order.
+     */
+    public void sortByDate() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size);
+
+        int[] sortedIds = new int[ids.length];
+        long[] sortedOffsets = new long[offsets.length];
+        int[] sortedLengths = new int[lengths.length];
+        long[] sortedKeys = new long[sortKeys.length];
+        Task[] sortedPinned = new Task[pinned.length];
+        BitSet sortedComplete = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            sortedIds[i] = ids[from];
+            sortedOffsets[i] = offsets[from];
+            sortedLengths[i] = lengths[from];
+            sortedKeys[i] = sortKeys[from];
+            sortedPinned[i] = pinned[from];
+            sortedComplete.set(i, complete.get(from));
+        }
+        ids = sortedIds;
+        offsets = sortedOffsets;
+        lengths = sortedLengths;
+        sortKeys = sortedKeys;
+        pinned = sortedPinned;
+        complete.clear();
+        complete.or(sortedComplete);
+        modCount++;
+    }
+
+    /**
+     * Sorts positions by sort key, stably, merging runs that are already in order without copying.
+     */
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle);
+        mergeSort(order, buffer, middle, to);
+        if (sortKeys[order[middle - 1]] <= sortKeys[order[middle]]) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && sortKeys[buffer[left]] <= sortKeys[buffer[right]])) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Writes every task to the save file and points the index at the new file.
+     * <p>
+     * The tasks are written to a temporary file first, which then replaces the save file.
+     * Lines of tasks that did not change are copied from the old file byte for byte.
+     * Changed tasks are no longer pinned afterwards, they move to the cache instead.
+     * </p>
+     *
+     * @param temp     an empty file in the same folder as the save file
+     * @param trailing lines to write after the tasks as they are, such as lines that are not valid tasks
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path temp, List<String> trailing) throws IOException {
+        long[] newOffsets = new long[offsets.length];
+        int[] newLengths = new int[lengths.length];
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long position = 0;
+            for (int i = 0; i < size; i++) {
+                byte[] line = pinned[i] != null ? pinned[i].toFileString().getBytes(StandardCharsets.UTF_8)
+                        : readBytes(offsets[i], lengths[i]);
+                newOffsets[i] = position;
+                newLengths[i] = line.length;
+                position += line.length + NEWLINE.length;
+                if (buffer.remaining() < line.length + NEWLINE.length) {
+                    drain(out, buffer);
+                }
+                if (buffer.remaining() < line.length + NEWLINE.length) {
+                    out.write(ByteBuffer.wrap(line));
+                    out.write(ByteBuffer.wrap(NEWLINE));
+                } else {
+                    buffer.put(line).put(NEWLINE);
+                }
+            }
+            drain(out, buffer);
+            for (String line : trailing) {
+                out.write(ByteBuffer.wrap((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        offsets = newOffsets;
+        lengths = newLengths;
+        for (int i = 0; i < size; i++) {
+            if (pinned[i] != null) {
+                cache.put(number, ids[i], pinned[i], lengths[i]);
+                pinned[i] = null;
+            }
+        }
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Drops the tasks of this list from the cache and closes the save file.
+     */
+    @Override
+    public void close() throws IOException {
+        cache.removeAll(number);
+        channel.close();
+    }
+
+    private void insert(int i, Task task, long offset, int length) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            sortKeys = Arrays.copyOf(sortKeys, capacity);
+            pinned = Arrays.copyOf(pinned, capacity);
+        }
+        int moved = size - i;
+        System.arraycopy(ids, i, ids, i + 1, moved);
+        System.arraycopy(offsets, i, offsets, i + 1, moved);
+        System.arraycopy(lengths, i, lengths, i + 1, moved);
+        System.arraycopy(sortKeys, i, sortKeys, i + 1, moved);
+        System.arraycopy(pinned, i, pinned, i + 1, moved);
+        for (int j = size; j > i; j--) {
+            complete.set(j, complete.get(j - 1));
+        }
+        ids[i] = nextId++;
+        offsets[i] = offset;
+        lengths[i] = length;
+        sortKeys[i] = sortKeyOf(task);
+        pinned[i] = null;
+        complete.set(i, task.isComplete());
+        size++;
+    }
+
+    private Task read(long offset, int length) {
+        String line = new String(readBytes(offset, length), StandardCharsets.UTF_8).trim();
+        try {
+            return TaskParser.fromFileString(line);
+        } catch (KattyException e) {
+            throw new IllegalStateException("The save file changed under the task list", e);
+        }
+    }
+
+    private byte[] readBytes(long offset, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                // Keep reading until the whole line is in
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.array();
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+    }
+
+    private static long sortKeyOf(Task task) {
+        return task.getSortDate().toEpochSecond(ZoneOffset.UTC);
+    }
+}
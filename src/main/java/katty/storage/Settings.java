@@ -0,0 +1,70 @@
+package katty.storage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Keeps the user's view settings, such as the sort order, in a properties file.
+ * <p>
+ * The file is read once when the settings are created, and rewritten through a
+ * temporary file whenever a setting changes, so it is never left half written.
+ * A missing or unreadable file just means every setting has its default.
+ * </p>
+ */
+public class Settings {
+    private final Path file;
+    private final Properties properties = new Properties();
+
+    /**
+     * Reads the settings from a file, if it exists.
+     *
+     * @param file the settings file
+     */
+    public Settings(Path file) {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                properties.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns a setting.
+     *
+     * @param key      the name of the setting
+     * @param fallback the value to return if it was never set
+     */
+    public String get(String key, String fallback) {
+        return properties.getProperty(key, fallback);
+    }
+
+    /**
+     * Changes a setting and saves every setting.
+     *
+     * @param key   the name of the setting
+     * @param value its new value
+     * @throws IOException if the file could not be written, in which case the setting only lasts until Katty exits
+     */
+    public void set(String key, String value) throws IOException {
+        properties.setProperty(key, value);
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Katty settings");
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package katty.storage;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import katty.task.Task;
+
+/**
+ * Keeps recently used tasks of {@link LazyTaskList}s in memory, within a heap budget.
+ * <p>
+ * Tasks are evicted least recently used first once their estimated size exceeds the
+ * budget. They are also held through {@link SoftReference}s, so the garbage collector
+ * can drop them sooner if the heap runs low anyway. Either way an evicted task is simply
+ * read from its save file again the next time it is needed.
+ * </p>
+ */
+public class TaskCache {
+    /** Rough size of a task object, its dates, its name's header and its cache entry. */
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final long budget;
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long used = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    private record Entry(SoftReference<Task> task, long size) {
+    }
+
+    /**
+     * Creates a cache that holds tasks up to an estimated number of bytes.
+     *
+     * @param budget the heap budget in bytes
+     */
+    public TaskCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Parses a heap budget such as {@code 512k}, {@code 64m} or {@code 1g}.
+     *
+     * @param text the budget, or {@code null}
+     * @return the budget in bytes, or -1 if none or an invalid one was given
+     */
+    public static long parseBudget(String text) {
+        if (text == null || text.isBlank()) {
+            return -1;
+        }
+        String digits = text.strip().toLowerCase();
+        long unit = switch (digits.charAt(digits.length() - 1)) {
+        case 'k' -> 1L << 10;
+        case 'm' -> 1L << 20;
+        case 'g' -> 1L << 30;
+        default -> 1;
+        };
+        if (unit > 1) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        try {
+            long budget = Long.parseLong(digits) * unit;
+            return budget > 0 ? budget : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns a cached task, or {@code null} if it is not in memory.
+     *
+     * @param list the number of the list the task belongs to
+     * @param id   the number of the task within its list
+     */
+    synchronized Task get(int list, int id) {
+        long key = keyOf(list, id);
+        Entry entry = entries.get(key);
+        Task task = entry == null ? null : entry.task().get();
+        if (task == null) {
+            misses++;
+            if (entry != null) {
+                entries.remove(key);
+                used -= entry.size();
+            }
+            return null;
+        }
+        hits++;
+        return task;
+    }
+
+    synchronized void put(int list, int id, Task task, int lineLength) {
+        Entry entry = new Entry(new SoftReference<>(task), ENTRY_OVERHEAD + 2L * lineLength);
+        Entry previous = entries.put(keyOf(list, id), entry);
+        used += entry.size() - (previous == null ? 0 : previous.size());
+
+        Iterator<Entry> eldestFirst = entries.values().iterator();
+        while (used > budget && eldestFirst.hasNext()) {
+            used -= eldestFirst.next().size();
+            eldestFirst.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void remove(int list, int id) {
+        Entry entry = entries.remove(keyOf(list, id));
+        if (entry != null) {
+            used -= entry.size();
+        }
+    }
+
+    /**
+     * Drops every task of a list, once the list is no longer used.
+     */
+    synchronized void removeAll(int list) {
+        Iterator<Map.Entry<Long, Entry>> all = entries.entrySet().iterator();
+        while (all.hasNext()) {
+            Map.Entry<Long, Entry> entry = all.next();
+            if (entry.getKey() >>> 32 == list) {
+                used -= entry.getValue().size();
+                all.remove();
+            }
+        }
+    }
+
+    private static long keyOf(int list, int id) {
+        return (long) list << 32 | (id & 0xffffffffL);
+    }
+
+    /**
+     * Describes the budget, how much of it is used, and how often tasks were found in memory.
+     *
+     * @return one line per figure
+     */
+    public synchronized String describe() {
+        long lookups = hits + misses;
+        return String.format("budget: %,d KB, %,d KB used by %,d tasks%n"
+                        + "hits: %,d, misses: %,d (%.1f%% hit rate)%nevictions: %,d",
+                budget >> 10, used >> 10, entries.size(),
+                hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions);
+    }
+}
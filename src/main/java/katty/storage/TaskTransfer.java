@@ -0,0 +1,371 @@
+package katty.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import katty.KattyException;
+import katty.task.Task;
+import katty.task.TaskParser;
+
+/**
+ * Streams tasks in and out of CSV and iCalendar ({@code .ics}) files.
+ * <p>
+ * Files are read and written line by line through buffered streams. Imported rows are
+ * turned into the same commands a user would type and parsed by {@link TaskParser},
+ * then handed over in batches, so only one batch of parsed rows is held here at a time.
+ * </p>
+ * <p>
+ * CSV files have the header {@code type,done,name,start,end,every,until}, where type is
+ * {@code todo}, {@code deadline} or {@code event}, done is {@code 0} or {@code 1} and
+ * dates are in {@value DATE_FORMAT} format.
+ * </p>
+ */
+public class TaskTransfer {
+    public static final int BATCH_SIZE = 10_000;
+    public static final int PROGRESS_INTERVAL = 100_000;
+    public static final String CSV_HEADER = "type,done,name,start,end,every,until";
+    private static final String DATE_FORMAT = "dd-MM-yyyy HH:mm";
+    private static final DateTimeFormatter dateTimeFormat = DateTimeFormatter.ofPattern(DATE_FORMAT);
+    private static final DateTimeFormatter icsDateTimeFormat = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter icsDateFormat = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int MAX_REJECTED_SAMPLES = 5;
+
+    /**
+     * Sums up an import.
+     *
+     * @param imported        number of tasks that were imported
+     * @param rejected        number of rows that could not be imported
+     * @param rejectedSamples descriptions of the first few rejected rows
+     */
+    public record Report(long imported, long rejected, List<String> rejectedSamples) {
+    }
+
+    /**
+     * Imports tasks from a CSV or iCalendar file, depending on its extension.
+     *
+     * @param file     the file to import
+     * @param batches  receives the imported tasks, at most {@value #BATCH_SIZE} at a time
+     * @param progress receives a progress message every {@value #PROGRESS_INTERVAL} rows
+     * @return a summary of the import
+     * @throws IOException if the file could not be read
+     */
+    public static Report importFile(Path file, Consumer<List<Task>> batches, Consumer<String> progress)
+            throws IOException {
+        Importer importer = new Importer(batches, progress);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (isCalendar(file)) {
+                importer.readCalendar(reader);
+            } else {
+                importer.readCsv(reader);
+            }
+        }
+        importer.flush();
+        return new Report(importer.imported, importer.rejected, importer.rejectedSamples);
+    }
+
+    /**
+     * Exports tasks to a CSV or iCalendar file, depending on its extension.
+     *
+     * @param file  the file to write, which is replaced if it exists
+     * @param tasks the tasks to export
+     * @throws IOException if the file could not be written
+     */
+    public static void exportFile(Path file, List<Task> tasks) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (isCalendar(file)) {
+                writeCalendar(writer, tasks);
+            } else {
+                writeCsv(writer, tasks);
+            }
+        }
+    }
+
+    private static boolean isCalendar(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".ics");
+    }
+
+    private static void writeCsv(BufferedWriter writer, List<Task> tasks) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.newLine();
+        for (Task task : tasks) {
+            // Save file fields: type | status | name | dates..., see TaskParser#fromFileString
+            String[] f = task.toFileString().split(" \\| ");
+            String[] row = switch (f[0]) {
+            case "T" -> new String[]{"todo", f[1], f[2], "", "", "", ""};
+            case "D" -> new String[]{"deadline", f[1], f[2], f[3], "", "", ""};
+            case "E" -> new String[]{"event", f[1], f[2], f[3], f[4], "", ""};
+            default -> new String[]{f[3].equals("E") ? "event" : "deadline", f[1], f[2], f[4],
+                f[5].equals("-") ? "" : f[5], f[6].toLowerCase(), f[7].equals("-") ? "" : f[7]};
+            };
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(toCsvField(row[i]));
+            }
+            writer.newLine();
+        }
+    }
+
+    private static String toCsvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void writeCalendar(BufferedWriter writer, List<Task> tasks) throws IOException {
+        writer.write("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Katty//Katty//EN\r\n");
+        for (Task task : tasks) {
+            String[] f = task.toFileString().split(" \\| ");
+            boolean isEvent = f[0].equals("E") || (f[0].equals("R") && f[3].equals("E"));
+            String component = isEvent ? "VEVENT" : "VTODO";
+
+            writer.write("BEGIN:" + component + "\r\n");
+            writer.write("SUMMARY:" + toIcsText(f[2]) + "\r\n");
+            switch (f[0]) {
+            case "D" -> writer.write("DUE:" + toIcsDate(f[3]) + "\r\n");
+            case "E" -> writer.write("DTSTART:" + toIcsDate(f[3]) + "\r\nDTEND:" + toIcsDate(f[4]) + "\r\n");
+            case "R" -> {
+                if (isEvent) {
+                    writer.write("DTSTART:" + toIcsDate(f[4]) + "\r\nDTEND:" + toIcsDate(f[5]) + "\r\n");
+                } else {
+                    writer.write("DUE:" + toIcsDate(f[4]) + "\r\n");
+                }
+                writer.write("RRULE:FREQ=" + (f[6].equals("DAY") ? "DAILY" : "WEEKLY")
+                        + (f[7].equals("-") ? "" : ";UNTIL=" + toIcsDate(f[7])) + "\r\n");
+            }
+            default -> {
+                // To-dos have no dates.
+            }
+            }
+            if (f[1].equals("1")) {
+                writer.write("STATUS:COMPLETED\r\n");
+            }
+            writer.write("END:" + component + "\r\n");
+        }
+        writer.write("END:VCALENDAR\r\n");
+    }
+
+    private static String toIcsDate(String date) {
+        return LocalDateTime.parse(date, dateTimeFormat).format(icsDateTimeFormat);
+    }
+
+    private static String toIcsText(String text) {
+        return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,");
+    }
+
+    /**
+     * Parses rows into tasks and hands them over in batches.
+     */
+    private static class Importer {
+        private final Consumer<List<Task>> batches;
+        private final Consumer<String> progress;
+        private final List<String> rejectedSamples = new ArrayList<>();
+        private List<Task> batch = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long rejected;
+
+        Importer(Consumer<List<Task>> batches, Consumer<String> progress) {
+            this.batches = batches;
+            this.progress = progress;
+        }
+
+        void readCsv(BufferedReader reader) throws IOException {
+            String line = reader.readLine();
+            if (line != null && !line.strip().equalsIgnoreCase(CSV_HEADER)) {
+                addCsvRow(line);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    addCsvRow(line);
+                }
+            }
+        }
+
+        private void addCsvRow(String line) {
+            List<String> fields = parseCsvLine(line);
+            while (fields.size() < 7) {
+                fields.add("");
+            }
+            add(fields.get(0).strip().toLowerCase(), fields.get(1).strip().equals("1"), fields.get(2),
+                    fields.get(3).strip(), fields.get(4).strip(), fields.get(5).strip(), fields.get(6).strip());
+        }
+
+        private static List<String> parseCsvLine(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean isQuoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (isQuoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        isQuoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    isQuoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        void readCalendar(BufferedReader reader) throws IOException {
+            Map<String, String> properties = new HashMap<>();
+            String component = null;
+            String pending = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Long lines are folded onto lines starting with a space or tab.
+                if (pending != null && (line.startsWith(" ") || line.startsWith("\t"))) {
+                    pending += line.substring(1);
+                    continue;
+                }
+                if (pending != null) {
+                    component = handleCalendarLine(pending, component, properties);
+                }
+                pending = line;
+            }
+            if (pending != null) {
+                handleCalendarLine(pending, component, properties);
+            }
+        }
+
+        /**
+         * Handles one unfolded iCalendar line.
+         *
+         * @return the component being read after this line, or {@code null} if outside of one
+         */
+        private String handleCalendarLine(String line, String component, Map<String, String> properties) {
+            if (line.equals("BEGIN:VEVENT") || line.equals("BEGIN:VTODO")) {
+                properties.clear();
+                return line.substring(6);
+            }
+            if (component == null) {
+                return null;
+            }
+            if (line.equals("END:" + component)) {
+                addCalendarComponent(component, properties);
+                return null;
+            }
+
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                String name = line.substring(0, colon);
+                int semicolon = name.indexOf(';');
+                properties.put((semicolon < 0 ? name : name.substring(0, semicolon)).toUpperCase(),
+                        line.substring(colon + 1));
+            }
+            return component;
+        }
+
+        private void addCalendarComponent(String component, Map<String, String> properties) {
+            String name = properties.getOrDefault("SUMMARY", "").replace("\\,", ",")
+                    .replace("\\;", ";").replace("\\n", " ").replace("\\\\", "\\");
+            boolean isDone = "COMPLETED".equalsIgnoreCase(properties.get("STATUS"));
+            String every = "";
+            String until = "";
+            String rule = properties.get("RRULE");
+            if (rule != null) {
+                for (String part : rule.split(";")) {
+                    if (part.startsWith("FREQ=")) {
+                        every = part.equals("FREQ=DAILY") ? "day" : part.equals("FREQ=WEEKLY") ? "week" : part;
+                    } else if (part.startsWith("UNTIL=")) {
+                        until = fromIcsDate(part.substring(6));
+                    }
+                }
+            }
+
+            if (component.equals("VEVENT")) {
+                String start = fromIcsDate(properties.getOrDefault("DTSTART", ""));
+                String end = properties.containsKey("DTEND") ? fromIcsDate(properties.get("DTEND")) : start;
+                add("event", isDone, name, start, end, every, until);
+            } else if (properties.containsKey("DUE")) {
+                add("deadline", isDone, name, fromIcsDate(properties.get("DUE")), "", every, until);
+            } else {
+                add("todo", isDone, name, "", "", "", "");
+            }
+        }
+
+        private static String fromIcsDate(String value) {
+            try {
+                String date = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+                LocalDateTime dateTime = date.length() == 8
+                        ? LocalDate.parse(date, icsDateFormat).atStartOfDay()
+                        : LocalDateTime.parse(date, icsDateTimeFormat);
+                return dateTime.format(dateTimeFormat);
+            } catch (DateTimeParseException e) {
+                return value;
+            }
+        }
+
+        private void add(String type, boolean isDone, String name, String start, String end, String every,
+                String until) {
+            rows++;
+            String input = switch (type) {
+            case "deadline" -> name + " /by " + start;
+            case "event" -> name + " /from " + start + " /to " + end;
+            default -> name;
+            };
+            if (!every.isEmpty()) {
+                input += " /every " + every + (until.isEmpty() ? "" : " /until " + until);
+            }
+
+            try {
+                Task task = TaskParser.parser(type, input);
+                // A recurring task is only done once all of its occurrences are, which never happens without an end.
+                boolean isEndless = !every.isEmpty() && until.isEmpty();
+                if (isDone && !isEndless) {
+                    while (task.markComplete()) {
+                        continue;
+                    }
+                }
+                batch.add(task);
+                imported++;
+            } catch (KattyException e) {
+                rejected++;
+                if (rejectedSamples.size() < MAX_REJECTED_SAMPLES) {
+                    rejectedSamples.add("Row " + rows + ": " + e.getMessage());
+                }
+            }
+
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+            if (rows % PROGRESS_INTERVAL == 0) {
+                progress.accept(String.format("Read %d rows so far, %d rejected...", rows, rejected));
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                batches.accept(batch);
+                batch = new ArrayList<>();
+            }
+        }
+    }
+}
@@ -31,6 +31,10 @@ public class Event extends Task {
         this.timeTo = LocalDateTime.parse(timeTo, dateTimeFormat);
     }
 
+    public LocalDateTime getTimeTo() {
+        return timeTo;
+    }
+
     @Override
     public LocalDateTime getSortDate() {
         return timeFrom;
@@ -0,0 +1,284 @@
+package katty.task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import katty.KattyException;
+
+/**
+ * Represents a deadline or event {@link Task} that repeats every day or every week.
+ * <p>
+ * A {@code RecurringTask} is stored as a single record. Its occurrences are never
+ * materialized, they are computed on demand by {@link #occurrences(LocalDateTime)}.
+ * Completed occurrences are remembered by their number in a {@link BitSet}, and the
+ * task as a whole is complete once every occurrence up to {@code until} is done.
+ * </p>
+ */
+public class RecurringTask extends Task {
+    public static final String RECURRING_FORMAT = "dd-MM-yyyy HH:mm";
+    /** The most occurrences a save file may mark as done, which bounds the memory it can take. */
+    public static final int MAX_DONE_OCCURRENCES = 1 << 20;
+    private static final DateTimeFormatter dateTimeFormat = DateTimeFormatter.ofPattern(RECURRING_FORMAT);
+
+    /**
+     * Sets how often a {@code RecurringTask} repeats.
+     */
+    public enum Frequency {
+        DAY(ChronoUnit.DAYS), WEEK(ChronoUnit.WEEKS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        /**
+         * Parses a frequency as typed by the user, e.g. {@code week} or {@code daily}.
+         *
+         * @param text the frequency
+         * @return the frequency, or {@code null} if it is not recognised
+         */
+        public static Frequency parse(String text) {
+            return switch (text.strip().toLowerCase()) {
+            case "day", "daily" -> DAY;
+            case "week", "weekly" -> WEEK;
+            default -> null;
+            };
+        }
+    }
+
+    /**
+     * Represents a single occurrence of a {@code RecurringTask}.
+     *
+     * @param number position of the occurrence, starting from 0
+     * @param start  when the occurrence is due or starts
+     * @param end    when the occurrence ends, or {@code null} for deadlines
+     */
+    public record Occurrence(int number, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private final LocalDateTime start;
+    private final Duration length;
+    private final Frequency frequency;
+    private final LocalDateTime until;
+    private final BitSet done;
+
+    /**
+     * Creates a new {@code RecurringTask}.
+     *
+     * @param taskName  name of the task
+     * @param start     when the first occurrence is due or starts
+     * @param end       when the first occurrence ends, or {@code null} for a recurring deadline
+     * @param frequency how often the task repeats
+     * @param until     the last time an occurrence may start, or {@code null} to repeat forever
+     */
+    public RecurringTask(String taskName, LocalDateTime start, LocalDateTime end, Frequency frequency,
+            LocalDateTime until) {
+        super(taskName);
+        this.start = start;
+        this.length = end != null ? Duration.between(start, end) : null;
+        this.frequency = frequency;
+        this.until = until;
+        this.done = new BitSet();
+    }
+
+    public boolean isEvent() {
+        return length != null;
+    }
+
+    /**
+     * Returns the occurrence with the given number.
+     *
+     * @param number position of the occurrence, starting from 0
+     * @return the occurrence, or {@code null} if it would start after {@code until}
+     */
+    public Occurrence getOccurrence(int number) {
+        if (number < 0) {
+            return null;
+        }
+        LocalDateTime occurrenceStart = start.plus(number, frequency.unit);
+        if (until != null && occurrenceStart.isAfter(until)) {
+            return null;
+        }
+        return new Occurrence(number, occurrenceStart, isEvent() ? occurrenceStart.plus(length) : null);
+    }
+
+    /**
+     * Returns the earliest occurrence that is not done yet.
+     *
+     * @return the occurrence, or {@code null} if every occurrence is done
+     */
+    public Occurrence getNextPending() {
+        return getOccurrence(done.nextClearBit(0));
+    }
+
+    /**
+     * Lazily iterates over the occurrences that end at or after a point in time, earliest first.
+     * <p>
+     * The first occurrence is computed directly rather than by stepping through
+     * earlier ones. The iterator is infinite if the task repeats forever.
+     * </p>
+     *
+     * @param from the point in time to start from
+     * @return an iterator over the occurrences
+     */
+    public Iterator<Occurrence> occurrences(LocalDateTime from) {
+        LocalDateTime lastStart = isEvent() ? from.minus(length) : from;
+        long skipped = Math.max(0, frequency.unit.between(start, lastStart));
+        while (skipped > 0 && start.plus(skipped, frequency.unit).isAfter(lastStart)) {
+            skipped--;
+        }
+        if (start.plus(skipped, frequency.unit).isBefore(lastStart)) {
+            skipped++;
+        }
+        int first = (int) Math.min(skipped, Integer.MAX_VALUE);
+
+        return new Iterator<>() {
+            private Occurrence next = getOccurrence(first);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Occurrence next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Occurrence current = next;
+                next = getOccurrence(current.number() + 1);
+                return current;
+            }
+        };
+    }
+
+    public boolean isDone(Occurrence occurrence) {
+        return done.get(occurrence.number());
+    }
+
+    @Override
+    public boolean isComplete() {
+        return getNextPending() == null;
+    }
+
+    /**
+     * Marks the earliest pending occurrence as done.
+     *
+     * @return {@code true} if an occurrence was marked
+     */
+    @Override
+    public boolean markComplete() {
+        Occurrence next = getNextPending();
+        if (next == null) {
+            return false;
+        }
+        done.set(next.number());
+        return true;
+    }
+
+    /**
+     * Marks the latest done occurrence as pending again.
+     *
+     * @return {@code true} if an occurrence was unmarked
+     */
+    @Override
+    public boolean markIncomplete() {
+        int last = done.length() - 1;
+        if (last < 0) {
+            return false;
+        }
+        done.clear(last);
+        return true;
+    }
+
+    /**
+     * Returns when the next pending occurrence is due, or the last occurrence once all are done.
+     */
+    @Override
+    public LocalDateTime getSortDate() {
+        Occurrence next = getNextPending();
+        if (next != null) {
+            return next.start();
+        }
+        Occurrence last = getOccurrence(done.length() - 1);
+        return last != null ? last.start() : start;
+    }
+
+    @Override
+    public String toFileString() {
+        // Format: R | status | description | type | start | end | frequency | until | done occurrences
+        return String.format("R | %d | %s | %s | %s | %s | %s | %s | %s",
+                isComplete() ? 1 : 0,
+                getTaskName(),
+                isEvent() ? "E" : "D",
+                start.format(dateTimeFormat),
+                isEvent() ? start.plus(length).format(dateTimeFormat) : "-",
+                frequency.name(),
+                until != null ? until.format(dateTimeFormat) : "-",
+                encodeDone());
+    }
+
+    /**
+     * Encodes the done occurrences as ranges, e.g. {@code 0-5,7}.
+     */
+    private String encodeDone() {
+        if (done.isEmpty()) {
+            return "-";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int from = done.nextSetBit(0); from >= 0; from = done.nextSetBit(from)) {
+            int to = done.nextClearBit(from) - 1;
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(from);
+            if (to > from) {
+                sb.append('-').append(to);
+            }
+            from = to + 1;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Restores the done occurrences written by {@link #toFileString()}.
+     *
+     * @param encoded the encoded occurrences
+     * @throws NumberFormatException if the encoding is malformed
+     * @throws KattyException        if a range is reversed or names an occurrence the task does not have
+     */
+    void decodeDone(String encoded) throws KattyException {
+        done.clear();
+        if (encoded.equals("-")) {
+            return;
+        }
+        for (String range : encoded.split(",")) {
+            int dash = range.indexOf('-');
+            int from = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+            int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1));
+            if (from < 0 || to < from || to >= MAX_DONE_OCCURRENCES || getOccurrence(to) == null) {
+                throw KattyException.corruptFile();
+            }
+            done.set(from, to + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        Occurrence next = getNextPending();
+        Occurrence shown = next != null ? next : getOccurrence(Math.max(0, done.length() - 1));
+        String when = isEvent()
+                ? String.format("from: %s to: %s", shown.start().format(dateTimeFormat),
+                        shown.end().format(dateTimeFormat))
+                : String.format("by: %s", shown.start().format(dateTimeFormat));
+        String repeat = "every " + frequency.name().toLowerCase()
+                + (until != null ? " until " + until.format(dateTimeFormat) : "");
+        return String.format("[R] %s (%s, %s)", super.toString(), when, repeat);
+    }
+}
@@ -0,0 +1,314 @@
+package katty.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import katty.KattyException;
+
+/**
+ * Orders tasks by one or more of their date, name, status and type.
+ * <p>
+ * Rather than comparing tasks field by field, every task is turned into one {@code long}
+ * key once per sort, with the fields packed from most to least significant, and the keys
+ * are sorted with a stable least-significant-digit radix sort. Names are packed as their
+ * rank among the distinct names in the list, lowercased, so only the names are ever compared.
+ * </p>
+ * <p>
+ * Tasks with the same key are then ordered by their name as written, and then by their
+ * save file line. Every Katty process sharing a save file so shows the same tasks in the
+ * same order, whichever order it learned of them in, while marking a task only moves it
+ * past others that differ in nothing but their status.
+ * </p>
+ * <p>
+ * A single task added to or changed in a sorted list is put in place by a binary search
+ * using {@link #compare(Task, Task)} instead, which orders tasks the same way as their keys.
+ * </p>
+ */
+public final class SortOrder implements Comparator<Task> {
+    public static final SortOrder BY_DATE = new SortOrder(List.of(Field.DATE));
+    public static final SortOrder BY_NAME = new SortOrder(List.of(Field.NAME));
+
+    /** Date keys count minutes from this many minutes before the epoch, so 32 bits span about 8000 years. */
+    private static final long MINUTES_BEFORE_EPOCH = 1L << 31;
+
+    private final List<Field> fields;
+
+    /**
+     * Represents a field tasks can be ordered by, with the number of bits its key takes.
+     */
+    public enum Field {
+        /** The date a task is due or starts, with to-dos first. */
+        DATE(32),
+        /** The name, A to Z ignoring case. */
+        NAME(28),
+        /** Incomplete tasks first. */
+        STATUS(1),
+        /** To-dos, deadlines, events, then recurring tasks. */
+        TYPE(2);
+
+        private final int bits;
+
+        Field(int bits) {
+            this.bits = bits;
+        }
+    }
+
+    private SortOrder(List<Field> fields) {
+        this.fields = List.copyOf(fields);
+    }
+
+    /**
+     * Parses an order such as {@code date}, {@code status, name} or {@code type date}.
+     *
+     * @param text the fields, most significant first, separated by commas or spaces
+     * @return the order
+     * @throws KattyException if a field is unknown or given twice
+     */
+    public static SortOrder parse(String text) throws KattyException {
+        List<Field> fields = new ArrayList<>();
+        for (String word : text.strip().toUpperCase(Locale.ROOT).split("[,\\s]+")) {
+            try {
+                Field field = Field.valueOf(word);
+                if (fields.contains(field)) {
+                    throw KattyException.invalidSortOrder();
+                }
+                fields.add(field);
+            } catch (IllegalArgumentException e) {
+                throw KattyException.invalidSortOrder();
+            }
+        }
+        return new SortOrder(fields);
+    }
+
+    /**
+     * Sorts a list of tasks in place.
+     *
+     * @param tasks the tasks
+     */
+    public void sort(List<Task> tasks) {
+        Task[] unsorted = tasks.toArray(Task[]::new);
+        long[] keys = keysOf(unsorted);
+        int[] order = sortedOrder(keys);
+        Task[] sorted = new Task[order.length];
+        int runStart = 0;
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = unsorted[order[i]];
+            if (keys[order[i]] != keys[order[runStart]]) {
+                breakTies(sorted, runStart, i);
+                runStart = i;
+            }
+        }
+        breakTies(sorted, runStart, order.length);
+        for (int i = 0; i < sorted.length; i++) {
+            tasks.set(i, sorted[i]);
+        }
+    }
+
+    private static void breakTies(Task[] tasks, int from, int to) {
+        if (to - from > 1) {
+            Arrays.sort(tasks, from, to, SortOrder::compareTies);
+        }
+    }
+
+    /**
+     * Orders tasks with the same key by their name as written, then by their save file line.
+     */
+    private static int compareTies(Task a, Task b) {
+        int order = a.getTaskName().compareTo(b.getTaskName());
+        return order != 0 ? order : a.toFileString().compareTo(b.toFileString());
+    }
+
+    /**
+     * Packs the fields of every task into one key each, so that keys sort like the tasks should.
+     *
+     * @param tasks the tasks
+     * @return the key of each task, never negative
+     */
+    public long[] keysOf(Task[] tasks) {
+        Map<String, Integer> ranks = fields.contains(Field.NAME) ? rankNames(tasks) : Map.of();
+        long[] keys = new long[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            Task task = tasks[i];
+            long key = 0;
+            for (Field field : fields) {
+                long value = field == Field.NAME
+                        ? ranks.get(task.getTaskName().toLowerCase(Locale.ROOT))
+                        : valueOf(field, task);
+                key = key << field.bits | value;
+            }
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Compares two tasks the way {@link #sort(List)} orders them.
+     */
+    @Override
+    public int compare(Task a, Task b) {
+        for (Field field : fields) {
+            int order = field == Field.NAME
+                    ? a.getTaskName().toLowerCase(Locale.ROOT).compareTo(b.getTaskName().toLowerCase(Locale.ROOT))
+                    : Long.compare(valueOf(field, a), valueOf(field, b));
+            if (order != 0) {
+                return order;
+            }
+        }
+        return compareTies(a, b);
+    }
+
+    /**
+     * Finds where a task goes among tasks in this order, by a binary search between two positions.
+     *
+     * @param tasks       the tasks, sorted in this order
+     * @param task        the task to place
+     * @param from        the first position it may go to
+     * @param to          the last position it may go to
+     * @param isAfterTies whether it goes after the tasks it ties with, rather than before them
+     * @return the position to insert the task at
+     */
+    public int insertionPoint(List<Task> tasks, Task task, int from, int to, boolean isAfterTies) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int order = compare(tasks.get(mid), task);
+            if (order < 0 || order == 0 && isAfterTies) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the key bits of a field other than the name, which is ranked across all tasks.
+     */
+    private static long valueOf(Field field, Task task) {
+        return switch (field) {
+        case DATE -> minutesOf(task.getSortDate());
+        case STATUS -> task.isComplete() ? 1 : 0;
+        case TYPE -> typeOf(task);
+        case NAME -> throw new IllegalArgumentException("Names are ranked, not packed alone");
+        };
+    }
+
+    /**
+     * Numbers the distinct lowercased names of the tasks in alphabetical order.
+     */
+    private static Map<String, Integer> rankNames(Task[] tasks) {
+        String[] names = Arrays.stream(tasks)
+                .map(task -> task.getTaskName().toLowerCase(Locale.ROOT))
+                .distinct()
+                .toArray(String[]::new);
+        Arrays.sort(names);
+        Map<String, Integer> ranks = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            ranks.put(names[i], Math.min(i, (1 << Field.NAME.bits) - 1));
+        }
+        return ranks;
+    }
+
+    private static long minutesOf(LocalDateTime date) {
+        if (date.equals(LocalDateTime.MIN)) {
+            return 0;
+        }
+        long minutes = Math.floorDiv(date.toEpochSecond(ZoneOffset.UTC), 60) + MINUTES_BEFORE_EPOCH;
+        return Math.max(0, Math.min(minutes, (1L << Field.DATE.bits) - 1));
+    }
+
+    private static long typeOf(Task task) {
+        if (task instanceof RecurringTask) {
+            return 3;
+        } else if (task instanceof Event) {
+            return 2;
+        } else if (task instanceof Deadline) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the positions of the keys in ascending order, by a stable radix sort over their bytes.
+     * <p>
+     * All byte counts are taken in one pass, and bytes that are the same in every key are skipped,
+     * so a sort by date alone only makes about four passes.
+     * </p>
+     *
+     * @param keys keys that are not negative
+     * @return the position of the smallest key first
+     */
+    public static int[] sortedOrder(long[] keys) {
+        int n = keys.length;
+        int[][] counts = new int[Long.BYTES][256];
+        for (long key : keys) {
+            for (int b = 0; b < Long.BYTES; b++) {
+                counts[b][(int) (key >>> (8 * b)) & 0xff]++;
+            }
+        }
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[n];
+        long[] sortedKeys = keys.clone();
+        long[] keyBuffer = new long[n];
+        for (int b = 0; b < Long.BYTES; b++) {
+            int shift = 8 * b;
+            int[] count = counts[b];
+            if (n == 0 || count[(int) (sortedKeys[0] >>> shift) & 0xff] == n) {
+                continue;
+            }
+            int[] start = new int[256];
+            for (int digit = 1; digit < 256; digit++) {
+                start[digit] = start[digit - 1] + count[digit - 1];
+            }
+            for (int i = 0; i < n; i++) {
+                int to = start[(int) (sortedKeys[i] >>> shift) & 0xff]++;
+                buffer[to] = order[i];
+                keyBuffer[to] = sortedKeys[i];
+            }
+            int[] swapOrder = order;
+            order = buffer;
+            buffer = swapOrder;
+            long[] swapKeys = sortedKeys;
+            sortedKeys = keyBuffer;
+            keyBuffer = swapKeys;
+        }
+        return order;
+    }
+
+    public boolean isByDate() {
+        return equals(BY_DATE);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SortOrder order && fields.equals(order.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    /**
+     * Describes the order the way {@link #parse(String)} reads it, e.g. {@code status, date}.
+     */
+    @Override
+    public String toString() {
+        return fields.stream()
+                .map(field -> field.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(", "));
+    }
+}
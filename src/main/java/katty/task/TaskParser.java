@@ -32,6 +32,20 @@ public class TaskParser {
             }
             return new ToDo(safeInput);
         }
+        case "deadline", "event" -> {
+            int recurrence = safeInput.indexOf(" /every ");
+            if (recurrence >= 0) {
+                Task base = parseTask(command, safeInput.substring(0, recurrence));
+                return parseRecurrence(base, safeInput.substring(recurrence + " /every ".length()));
+            }
+            return parseTask(command, safeInput);
+        }
+        default -> throw KattyException.invalidCommand();
+        }
+    }
+
+    private static Task parseTask(String command, String safeInput) throws KattyException {
+        switch (command) {
         case "deadline" -> {
             String[] s = safeInput.split(" /by ");
             if (s.length != 2) {
@@ -65,6 +79,37 @@ public class TaskParser {
         }
     }
 
+    /**
+     * Turns a deadline or event into a {@link RecurringTask}.
+     *
+     * @param base       the first occurrence
+     * @param recurrence the text after {@code /every}, e.g. {@code week /until 31-12-2027 23:59}
+     * @return the recurring task
+     * @throws KattyException if the recurrence is invalid
+     */
+    private static Task parseRecurrence(Task base, String recurrence) throws KattyException {
+        String[] s = recurrence.split(" /until ");
+        RecurringTask.Frequency frequency = RecurringTask.Frequency.parse(s[0]);
+        if (s.length > 2 || frequency == null) {
+            throw KattyException.invalidRecurrence();
+        }
+
+        LocalDateTime until = null;
+        if (s.length == 2) {
+            try {
+                until = LocalDateTime.parse(s[1].strip(), DateTimeFormatter.ofPattern(RecurringTask.RECURRING_FORMAT));
+            } catch (DateTimeParseException e) {
+                throw KattyException.badDateFormat();
+            }
+            if (until.isBefore(base.getSortDate())) {
+                throw KattyException.invalidTimeRange();
+            }
+        }
+
+        LocalDateTime end = base instanceof Event event ? event.getTimeTo() : null;
+        return new RecurringTask(base.getTaskName(), base.getSortDate(), end, frequency, until);
+    }
+
     /**
      * Reconstructs a {@link Task} object from a formatted string stored in the save file.
      * <p>
@@ -77,24 +122,70 @@ public class TaskParser {
      * @return the corresponding {@code Task} object, or {@code null} if the format is invalid
      */
     public static Task fromFileString(String line) throws KattyException {
+        String[] parts = line.split(" \\| ");
+        String type = parts[0];
+        int expectedParts = switch (type) {
+        case "T" -> 3;
+        case "D" -> 4;
+        case "E" -> 5;
+        case "R" -> 9;
+        default -> -1;
+        };
+        if (parts.length != expectedParts) {
+            throw KattyException.corruptFile();
+        }
+        if (type.equals("R")) {
+            return fromRecurringFileString(parts);
+        }
+
         try {
-            String[] parts = line.split(" \\| ");
-            String type = parts[0];
             boolean isDone = parts[1].equals("1");
             String desc = parts[2];
 
             Task t = switch (type) {
             case "T" -> new ToDo(desc);
             case "D" -> new Deadline(desc, parts[3]);
-            case "E" -> new Event(desc, parts[3], parts[4]);
-            default -> throw KattyException.corruptFile();
+            default -> new Event(desc, parts[3], parts[4]);
             };
 
             if (t != null && isDone) {
                 t.markComplete();
             }
             return t;
-        } catch (Exception e) {
+        } catch (DateTimeParseException e) {
+            throw KattyException.corruptFile();
+        }
+    }
+
+    /**
+     * Reconstructs a {@link RecurringTask} from the fields of its save file line.
+     * <p>
+     * The expected format is {@code R | Status | Description | D/E | Start | End | Frequency | Until | Done},
+     * where End and Until may be {@code -}. The status is derived from the done occurrences.
+     * A task that would end or stop repeating before it starts, or that marks occurrences
+     * it does not have as done, is rejected as corrupt.
+     * </p>
+     */
+    private static Task fromRecurringFileString(String[] parts) throws KattyException {
+        try {
+            DateTimeFormatter format = DateTimeFormatter.ofPattern(RecurringTask.RECURRING_FORMAT);
+            boolean isEvent = parts[3].equals("E");
+            if (!isEvent && !parts[3].equals("D")) {
+                throw KattyException.corruptFile();
+            }
+
+            LocalDateTime start = LocalDateTime.parse(parts[4], format);
+            LocalDateTime end = isEvent ? LocalDateTime.parse(parts[5], format) : null;
+            LocalDateTime until = parts[7].equals("-") ? null : LocalDateTime.parse(parts[7], format);
+            if ((end != null && end.isBefore(start)) || (until != null && until.isBefore(start))) {
+                throw KattyException.corruptFile();
+            }
+
+            RecurringTask t = new RecurringTask(parts[2], start, end, RecurringTask.Frequency.valueOf(parts[6]),
+                    until);
+            t.decodeDone(parts[8]);
+            return t;
+        } catch (DateTimeParseException | IllegalArgumentException e) {
             throw KattyException.corruptFile();
         }
     }
@@ -0,0 +1,77 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import katty.command.CommandRegistry;
+
+@Tag("benchmark")
+public class AutocompleteBenchmarkTest {
+    private static final int TASKS = 200_000;
+    private static final int LOOKUPS = 10_000;
+    private static final String[] WORDS = {"read", "submit", "call", "buy", "clean", "plan", "review", "book",
+        "report", "groceries", "garage", "trip", "budget", "chapter", "mum", "dentist"};
+
+    @Test
+    public void suggest_perKeystroke() throws IOException {
+        Path dir = Files.createTempDirectory("katty-autocomplete");
+        Path save = dir.resolve("kattySave.txt");
+        Random random = new Random(46);
+        try (BufferedWriter writer = Files.newBufferedWriter(save)) {
+            for (int i = 0; i < TASKS; i++) {
+                writer.write(String.format("T | 0 | %s %s %d", WORDS[random.nextInt(WORDS.length)],
+                        WORDS[random.nextInt(WORDS.length)], i));
+                writer.newLine();
+            }
+        }
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        assertTrue(manager.loadFile().isSuccess());
+
+        CommandRegistry commands = new CommandRegistry();
+        for (String name : List.of("mark", "find", "deadline", "delete")) {
+            commands.register(name, (args, out, format) -> true);
+        }
+        Autocomplete autocomplete = new Autocomplete(commands);
+        long start = System.nanoTime();
+        manager.addListener(autocomplete);
+        long build = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        assertEquals(Autocomplete.MAX_SUGGESTIONS, autocomplete.suggest("mark rev", manager).size());
+        long numbering = System.nanoTime() - start;
+
+        long[] times = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String input = (i % 2 == 0 ? "mark " : "find ") + word.substring(0, 1 + random.nextInt(word.length()));
+            start = System.nanoTime();
+            autocomplete.suggest(input, manager);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+
+        System.out.printf("%d tasks%n", TASKS);
+        System.out.printf("build trie: %.1f ms, number tasks once: %.1f ms%n", build / 1e6, numbering / 1e6);
+        System.out.printf("lookup: median %.1f us, p99 %.1f us%n", times[LOOKUPS / 2] / 1e3,
+                times[LOOKUPS * 99 / 100] / 1e3);
+
+        manager.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
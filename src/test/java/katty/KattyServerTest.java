@@ -0,0 +1,80 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("benchmark")
+public class KattyServerTest {
+    private static final int CLIENTS = 300;
+    private static final int COMMANDS_PER_CLIENT = 50;
+
+    @Test
+    public void server_concurrentClients() throws Exception {
+        try (KattyServer server = new KattyServer(0)) {
+            server.start();
+
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            List<Future<Integer>> replies = new ArrayList<>();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < CLIENTS; i++) {
+                replies.add(clients.submit(() -> runClient(server.getPort())));
+            }
+
+            int total = 0;
+            for (Future<Integer> reply : replies) {
+                total += reply.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            clients.shutdown();
+
+            assertEquals(CLIENTS * COMMANDS_PER_CLIENT, total);
+            System.out.printf("%d clients, %d commands in %.1f ms (%.0f commands/s)%n",
+                    CLIENTS, total, elapsed / 1e6, total / (elapsed / 1e9));
+        }
+    }
+
+    private static int runClient(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println("format plain");
+            readReply(in);
+
+            int replies = 0;
+            for (int i = 0; i < COMMANDS_PER_CLIENT; i++) {
+                out.println(i % 2 == 0 ? "list" : "find katty");
+                if (!readReply(in).isEmpty()) {
+                    replies++;
+                }
+            }
+            out.println("bye");
+            return replies;
+        }
+    }
+
+    private static List<String> readReply(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+}
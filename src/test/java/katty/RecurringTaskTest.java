@@ -0,0 +1,62 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+import katty.task.RecurringTask;
+import katty.task.Task;
+import katty.task.TaskParser;
+
+public class RecurringTaskTest {
+    @Test
+    public void occurrences_startFromGivenTime() throws KattyException {
+        RecurringTask task = (RecurringTask) TaskParser.parser("deadline",
+                "gym /by 01-01-2026 10:00 /every week /until 29-01-2026 10:00");
+
+        Iterator<RecurringTask.Occurrence> occurrences = task.occurrences(LocalDateTime.of(2026, 1, 10, 0, 0));
+        assertEquals(LocalDateTime.of(2026, 1, 15, 10, 0), occurrences.next().start());
+        assertEquals(LocalDateTime.of(2026, 1, 22, 10, 0), occurrences.next().start());
+        assertEquals(LocalDateTime.of(2026, 1, 29, 10, 0), occurrences.next().start());
+        assertFalse(occurrences.hasNext());
+    }
+
+    @Test
+    public void markComplete_marksNextOccurrence() throws KattyException {
+        RecurringTask task = (RecurringTask) TaskParser.parser("event",
+                "standup /from 01-01-2026 09:00 /to 01-01-2026 09:15 /every day /until 03-01-2026 09:00");
+
+        assertTrue(task.markComplete());
+        assertEquals(LocalDateTime.of(2026, 1, 2, 9, 0), task.getSortDate());
+        assertTrue(task.markComplete());
+        assertTrue(task.markComplete());
+        assertTrue(task.isComplete());
+        assertFalse(task.markComplete());
+    }
+
+    @Test
+    public void fileString_roundTrip() throws KattyException {
+        Task task = TaskParser.parser("deadline", "gym /by 01-01-2026 10:00 /every week");
+        task.markComplete();
+        task.markComplete();
+
+        String line = task.toFileString();
+        assertEquals("R | 0 | gym | D | 01-01-2026 10:00 | - | WEEK | - | 0-1", line);
+        assertEquals(task.toString(), TaskParser.fromFileString(line).toString());
+    }
+
+    @Test
+    public void fromFileString_rejectsImpossibleOccurrences() {
+        String prefix = "R | 0 | gym | D | 01-01-2026 10:00 | - | WEEK | ";
+        assertThrows(KattyException.class, () -> TaskParser.fromFileString(prefix + "- | 5-3"));
+        assertThrows(KattyException.class, () -> TaskParser.fromFileString(prefix + "- | 0-2000000000"));
+        assertThrows(KattyException.class, () -> TaskParser.fromFileString(prefix + "15-01-2026 10:00 | 3"));
+        assertThrows(KattyException.class, () -> TaskParser.fromFileString(prefix + "01-12-2025 10:00 | -"));
+    }
+}
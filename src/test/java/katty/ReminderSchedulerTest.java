@@ -0,0 +1,131 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import katty.task.Deadline;
+import katty.task.Task;
+import katty.task.TaskParser;
+import katty.task.ToDo;
+
+public class ReminderSchedulerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 3, 1, 9, 0);
+
+    @Test
+    public void takeDue_remindsInDueOrder() throws Exception {
+        ReminderScheduler scheduler = new ReminderScheduler(new MovableClock(START));
+        Task noon = new Deadline("lunch", "01-03-2030 12:00");
+        Task ten = new Deadline("call", "01-03-2030 10:00");
+        Task eleven = new Deadline("email", "01-03-2030 11:00");
+        for (Task task : List.of(noon, ten, new ToDo("someday"), eleven)) {
+            scheduler.taskAdded(task);
+        }
+
+        assertEquals(List.of(ten, eleven), scheduler.upcoming(2));
+        assertEquals(List.of(ten, eleven), scheduler.takeDue(START.plusHours(2).plusMinutes(30)));
+        assertEquals(List.of(noon), scheduler.takeDue(START.plusHours(5)));
+        assertEquals(List.of(), scheduler.takeDue(START.plusHours(6)));
+    }
+
+    @Test
+    public void taskChanges_rescheduleReminders() throws Exception {
+        ReminderScheduler scheduler = new ReminderScheduler(new MovableClock(START));
+        Task deleted = new Deadline("call", "01-03-2030 10:00");
+        Task marked = new Deadline("email", "01-03-2030 11:00");
+        Task edited = new Deadline("lunch", "01-03-2030 12:00");
+        Task gym = TaskParser.parser("deadline", "gym /by 01-03-2030 10:30 /every day");
+        for (Task task : List.of(deleted, marked, edited, gym)) {
+            scheduler.taskAdded(task);
+        }
+
+        scheduler.taskRemoved(deleted);
+        marked.markComplete();
+        scheduler.taskUpdated(marked);
+        Task moved = new Deadline("lunch", "01-03-2030 13:00");
+        scheduler.taskRemoved(edited);
+        scheduler.taskAdded(moved);
+        gym.markComplete();
+        scheduler.taskUpdated(gym);
+
+        assertEquals(List.of(), scheduler.takeDue(START.plusHours(3).plusMinutes(30)));
+        assertEquals(List.of(moved), scheduler.takeDue(START.plusHours(4)));
+        assertEquals(List.of(gym), scheduler.takeDue(START.plusDays(1).plusHours(2)));
+        assertEquals(List.of(gym), scheduler.takeDue(START.plusDays(2).plusHours(2)));
+    }
+
+    @Test
+    public void tasksReloaded_skipsCompletedTasks() throws Exception {
+        ReminderScheduler scheduler = new ReminderScheduler(new MovableClock(START));
+        Task done = new Deadline("call", "01-03-2030 10:00");
+        done.markComplete();
+        Task pending = new Deadline("email", "01-03-2030 11:00");
+        scheduler.tasksReloaded(List.of(done, pending));
+
+        assertEquals(List.of(pending), scheduler.upcoming(5));
+        assertEquals(List.of(pending), scheduler.takeDue(START.plusHours(3)));
+    }
+
+    @Test
+    public void stop_endsThreadAfterRemindersFire() throws Exception {
+        MovableClock clock = new MovableClock(START);
+        ReminderScheduler scheduler = new ReminderScheduler(clock);
+        BlockingQueue<Task> fired = new LinkedBlockingQueue<>();
+        BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+        scheduler.stop();
+        scheduler.start(task -> {
+            threads.add(Thread.currentThread());
+            fired.add(task);
+        });
+
+        clock.set(START.plusHours(2));
+        Task call = new Deadline("call", "01-03-2030 10:00");
+        scheduler.taskAdded(call);
+        assertEquals(call, fired.poll(10, TimeUnit.SECONDS));
+
+        Thread thread = threads.take();
+        scheduler.stop();
+        assertFalse(thread.isAlive());
+    }
+
+    /**
+     * Tells a time that only changes when it is set.
+     */
+    private static final class MovableClock extends Clock {
+        private volatile Instant instant;
+
+        private MovableClock(LocalDateTime time) {
+            set(time);
+        }
+
+        private void set(LocalDateTime time) {
+            instant = time.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("benchmark")
+public class SaveFileBenchmarkTest {
+    private static final int TASKS = 200_000;
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    @Test
+    public void saveFile_compressedVsPlain() throws IOException {
+        Path dir = Files.createTempDirectory("katty-save");
+        Path save = dir.resolve("kattySave.txt");
+        writeTasks(save);
+
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        assertTrue(manager.loadFile().isSuccess());
+        String expected = manager.getFormattedTaskList();
+
+        long plainSave = time(() -> assertTrue(manager.setCompressed(false).isSuccess()));
+        long plainSize = Files.size(save);
+        long plainLoad = time(() -> assertTrue(manager.loadFile().isSuccess()));
+
+        long gzipSave = time(() -> assertTrue(manager.setCompressed(true).isSuccess()));
+        long gzipSize = Files.size(save);
+        long gzipLoad = time(() -> assertTrue(manager.loadFile().isSuccess()));
+
+        assertTrue(manager.isCompressed());
+        assertEquals(expected, manager.getFormattedTaskList());
+        assertTrue(gzipSize * 4 < plainSize);
+
+        System.out.printf("%d tasks%n", TASKS);
+        System.out.printf("plain: %,d bytes, save %.1f ms, load %.1f ms%n", plainSize, plainSave / 1e6,
+                plainLoad / 1e6);
+        System.out.printf("gzip:  %,d bytes, save %.1f ms, load %.1f ms%n", gzipSize, gzipSave / 1e6,
+                gzipLoad / 1e6);
+
+        manager.close();
+        Files.deleteIfExists(save);
+        Files.deleteIfExists(dir.resolve("kattySave.txt.log"));
+        Files.deleteIfExists(dir.resolve("kattySave.txt.lock"));
+        Files.deleteIfExists(dir.resolve("kattyArchive.gz"));
+        Files.delete(dir);
+    }
+
+    private static void writeTasks(Path save) throws IOException {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        try (BufferedWriter writer = Files.newBufferedWriter(save)) {
+            for (int i = 0; i < TASKS; i++) {
+                LocalDateTime when = start.plusHours(i);
+                String line = switch (i % 3) {
+                case 0 -> String.format("T | 0 | read chapter %d", i);
+                case 1 -> String.format("D | 0 | submit report %d | %s", i, when.format(FORMAT));
+                default -> String.format("E | 0 | meeting %d | %s | %s", i, when.format(FORMAT),
+                        when.plusHours(1).format(FORMAT));
+                };
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+}
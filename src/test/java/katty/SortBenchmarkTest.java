@@ -0,0 +1,85 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import katty.task.Deadline;
+import katty.task.Event;
+import katty.task.SortOrder;
+import katty.task.Task;
+import katty.task.ToDo;
+
+@Tag("benchmark")
+public class SortBenchmarkTest {
+    private static final int TASKS = 200_000;
+    private static final int RUNS = 5;
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    @Test
+    public void sort_comparatorVsPackedKeys() throws KattyException {
+        List<Task> tasks = randomTasks();
+        Comparator<Task> ties = Comparator.comparing(Task::getTaskName).thenComparing(Task::toFileString);
+        Comparator<Task> byDate = Comparator.comparing(Task::getSortDate).thenComparing(ties);
+        Comparator<Task> byStatusNameDate = Comparator.comparing(Task::isComplete)
+                .thenComparing(task -> task.getTaskName().toLowerCase(Locale.ROOT))
+                .thenComparing(Task::getSortDate)
+                .thenComparing(ties);
+
+        System.out.printf("%d tasks, best of %d runs%n", TASKS, RUNS);
+        compare("date", tasks, byDate, SortOrder.BY_DATE);
+        compare("status, name, date", tasks, byStatusNameDate, SortOrder.parse("status, name, date"));
+    }
+
+    private static void compare(String label, List<Task> tasks, Comparator<Task> comparator, SortOrder order) {
+        List<Task> expected = new ArrayList<>(tasks);
+        expected.sort(comparator);
+        List<Task> actual = new ArrayList<>(tasks);
+        order.sort(actual);
+        assertEquals(expected, actual);
+
+        long comparing = best(() -> new ArrayList<>(tasks).sort(comparator));
+        long packed = best(() -> order.sort(new ArrayList<>(tasks)));
+        System.out.printf("%-20s comparator %.1f ms, packed keys %.1f ms%n", label + ":", comparing / 1e6,
+                packed / 1e6);
+    }
+
+    private static List<Task> randomTasks() {
+        Random random = new Random(44);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            String name = "chore " + random.nextInt(TASKS / 4);
+            String when = start.plusMinutes(random.nextInt(1_000_000)).format(FORMAT);
+            Task task = switch (i % 3) {
+            case 0 -> new ToDo(name);
+            case 1 -> new Deadline(name, when);
+            default -> new Event(name, when, when);
+            };
+            if (random.nextInt(4) == 0) {
+                task.markComplete();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static long best(Runnable action) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            action.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
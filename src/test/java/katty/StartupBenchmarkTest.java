@@ -0,0 +1,141 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.spi.ToolProvider;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("benchmark")
+public class StartupBenchmarkTest {
+    private static final int RUNS = 5;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @Test
+    public void startup_cliVsGui() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("katty-startup");
+        Files.writeString(dir.resolve("kattySave.txt"),
+                "T | 0 | read book\nD | 0 | submit report | 01-03-2030 18:00\n");
+        Path archive = dir.resolve("katty-cli.jsa");
+        String classPath = packClassFolders(dir);
+
+        long cli = median(dir, classPath, "--cli");
+        assertTrue(cli > 0, "the console never showed its first response");
+
+        // Records the classes the console loads, like gradlew cliArchive does for the jar
+        run(dir, classPath, "--cli", "-XX:ArchiveClassesAtExit=" + archive);
+        long cds = Files.exists(archive)
+                ? median(dir, classPath, "--cli", "-XX:SharedArchiveFile=" + archive)
+                : -1;
+        long gui = median(dir, classPath, null);
+
+        System.out.printf("time to first response, median of %d runs%n", RUNS);
+        System.out.printf("cli:         %s%n", describe(cli));
+        System.out.printf("cli+AppCDS:  %s%n", describe(cds));
+        System.out.printf("gui:         %s%n", gui < 0 ? "unavailable, no display or JavaFX" : describe(gui));
+
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Packs the class folders of the test class path into a jar, since class data sharing
+     * only archives classes loaded from jars.
+     *
+     * @return the class path with the jar in place of the folders
+     */
+    private static String packClassFolders(Path dir) {
+        List<String> entries = new ArrayList<>();
+        Path jar = dir.resolve("classes.jar");
+        List<String> jarArgs = new ArrayList<>(List.of("--create", "--file", jar.toString()));
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (Files.isDirectory(Path.of(entry))) {
+                jarArgs.addAll(List.of("-C", entry, "."));
+            } else {
+                entries.add(entry);
+            }
+        }
+        if (jarArgs.size() > 3 && ToolProvider.findFirst("jar").orElseThrow()
+                .run(System.out, System.err, jarArgs.toArray(String[]::new)) == 0) {
+            entries.add(0, jar.toString());
+            return String.join(File.pathSeparator, entries);
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    private static String describe(long nanos) {
+        return nanos < 0 ? "unavailable" : String.format("%.0f ms", nanos / 1e6);
+    }
+
+    private static long median(Path dir, String classPath, String mode, String... jvmOptions)
+            throws IOException, InterruptedException {
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            times[i] = run(dir, classPath, mode, jvmOptions);
+            if (times[i] < 0) {
+                return -1;
+            }
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    /**
+     * Starts Katty in a new JVM and times how long it takes to show its first response.
+     *
+     * @return the time in nanoseconds, or -1 if it never showed one
+     */
+    private static long run(Path dir, String classPath, String mode, String... jvmOptions)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(jvmOptions));
+        command.addAll(List.of("-Dkatty.reportStartup=true", "-cp", classPath, "katty.Launcher"));
+        if (mode != null) {
+            command.add(mode);
+        }
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).directory(dir.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try (OutputStream input = process.getOutputStream()) {
+            input.write("bye\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The process already ended, which is reported below
+        }
+
+        long elapsed = -1;
+        try (BufferedReader errors = new BufferedReader(
+                new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = errors.readLine()) != null) {
+                if (line.startsWith("katty-startup ")) {
+                    elapsed = System.nanoTime() - start;
+                    break;
+                }
+            }
+        }
+        if (mode == null || !process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroy(); // The window does not close by itself
+        }
+        process.waitFor();
+        return elapsed;
+    }
+}
@@ -0,0 +1,80 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TaskListsTest {
+    @Test
+    public void undoAndRedo_reverseDeleteMarkAndMove(@TempDir Path dir) {
+        TaskLists lists = new TaskLists(dir);
+        lists.use(TaskLists.DEFAULT_LIST);
+        run(lists, "todo a", () -> lists.current().parser("todo", "a"));
+        run(lists, "todo b", () -> lists.current().parser("todo", "b"));
+        run(lists, "mark 1", () -> lists.current().markDone(1));
+        run(lists, "delete 2", () -> lists.current().deleteTask(2));
+        run(lists, "move 1 work", () -> lists.move(1, "work"));
+        assertEquals(List.of(), lists.current().snapshot());
+
+        assertEquals("I've undone: move 1 work", lists.undo().getMessage());
+        assertEquals(List.of("T | 1 | a"), lists.current().snapshot());
+        lists.undo();
+        assertEquals(List.of("T | 1 | a", "T | 0 | b"), lists.current().snapshot());
+        lists.undo();
+        assertEquals(List.of("T | 0 | a", "T | 0 | b"), lists.current().snapshot());
+
+        lists.redo();
+        lists.redo();
+        assertEquals(List.of("T | 1 | a"), lists.current().snapshot());
+        lists.redo();
+        assertEquals(List.of(), lists.current().snapshot());
+        lists.use("work");
+        assertEquals(List.of("T | 1 | a"), lists.current().snapshot());
+        assertFalse(lists.redo().isSuccess());
+        lists.close();
+    }
+
+    @Test
+    public void undo_putsDeletedTaskBackUnderItsNumber(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\nT | 0 | b\nT | 0 | c\n");
+        TaskLists lists = new TaskLists(dir);
+        lists.use(TaskLists.DEFAULT_LIST);
+        run(lists, "delete 2", () -> lists.current().deleteTask(2));
+        lists.undo();
+        assertEquals(List.of("T | 0 | a", "T | 0 | b", "T | 0 | c"), lists.current().snapshot());
+        assertFalse(Files.readString(dir.resolve("kattySave.txt.log")).contains(" @"));
+        lists.close();
+    }
+
+    @Test
+    public void undo_worksAfterRestart(@TempDir Path dir) {
+        TaskLists lists = new TaskLists(dir);
+        lists.use(TaskLists.DEFAULT_LIST);
+        run(lists, "todo a", () -> lists.current().parser("todo", "a"));
+        run(lists, "mark 1", () -> lists.current().markDone(1));
+        lists.close();
+
+        TaskLists restarted = new TaskLists(dir);
+        restarted.use(TaskLists.DEFAULT_LIST);
+        assertEquals("I've undone: mark 1", restarted.undo().getMessage());
+        assertEquals(List.of("T | 0 | a"), restarted.current().snapshot());
+        restarted.close();
+    }
+
+    /**
+     * Runs a command the way {@link Katty} does, as one change in the undo history.
+     */
+    private static void run(TaskLists lists, String command, Supplier<KattyResult> action) {
+        lists.getHistory().begin();
+        action.get();
+        lists.getHistory().end(command);
+    }
+}
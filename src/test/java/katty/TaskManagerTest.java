@@ -0,0 +1,279 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import katty.storage.TaskTransfer;
+import katty.task.SortOrder;
+
+public class TaskManagerTest {
+    @Test
+    public void loadFile_archivesWithFirstChangeOnly(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "D | 1 | old | 01-01-2020 18:00\n");
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            manager.loadFile();
+            assertEquals(1, manager.size());
+            assertEquals("D | 1 | old | 01-01-2020 18:00\n", Files.readString(save));
+
+            manager.parser("todo", "new");
+            assertEquals(1, manager.size());
+            assertEquals("T | 0 | new", manager.snapshot().get(0));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void loadFile_leavesFileWithSkippedLinesAlone(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "D | 1 | old | 01-01-2020 18:00\ngarbage\n");
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            assertEquals(KattyError.PARTIAL_LOAD_SAVE_FILE, manager.loadFile().getError());
+            manager.parser("todo", "new");
+            assertEquals(2, manager.size());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void markDone_keepsListSortedByStatus(@TempDir Path dir) throws KattyException {
+        TaskManager manager = new TaskManager(dir.resolve("kattySave.txt"), dir.resolve("kattyArchive.gz"));
+        try {
+            manager.setSortOrder(SortOrder.parse("status, name"));
+            for (String name : List.of("c", "a", "d", "b")) {
+                manager.parser("todo", name);
+            }
+            assertEquals(List.of("T | 0 | a", "T | 0 | b", "T | 0 | c", "T | 0 | d"), manager.snapshot());
+
+            manager.markDone(2);
+            manager.markDone(1);
+            assertEquals(List.of("T | 0 | c", "T | 0 | d", "T | 1 | a", "T | 1 | b"), manager.snapshot());
+            manager.markIncomplete(4);
+            assertEquals(List.of("T | 0 | b", "T | 0 | c", "T | 0 | d", "T | 1 | a"), manager.snapshot());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void dedupe_removesOnlyLaterCopies(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"),
+                "T | 0 | read book\nT | 1 | Read  Book\nT | 0 | read books\n");
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            manager.loadFile();
+            assertTrue(manager.dedupe().isSuccess());
+            assertEquals(List.of("T | 1 | Read  Book", "T | 0 | read books"), manager.snapshot());
+            assertFalse(manager.dedupe().isSuccess());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void importTasks_takesBackTasksOfUnreadableFile(@TempDir Path dir) throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        for (int i = 0; i < TaskTransfer.BATCH_SIZE + 1; i++) {
+            csv.writeBytes(("todo,0,task " + i + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        csv.write(0xFF); // Not UTF-8, so reading fails after the first batch
+        Path file = Files.write(dir.resolve("tasks.csv"), csv.toByteArray());
+        Path save = dir.resolve("kattySave.txt");
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+
+        assertEquals(KattyError.FAIL_TO_TRANSFER, manager.importTasks(file, message -> { }).getError());
+        assertEquals(0, manager.size());
+        assertFalse(Files.exists(save));
+    }
+
+    @Test
+    public void importTasks_reportsRejectedRowsWithoutSaving(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("tasks.csv"), "chore,0,sweep\n");
+        Path save = dir.resolve("kattySave.txt");
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+
+        KattyResult result = manager.importTasks(file, message -> { });
+        assertEquals(KattyError.NOTHING_IMPORTED, result.getError());
+        assertTrue(result.getData().startsWith("Row "));
+        assertEquals(0, manager.size());
+        assertFalse(Files.exists(save));
+    }
+
+    @Test
+    public void readFile_writesNothing(@TempDir Path dir) throws IOException {
+        String content = "D | 1 | old | 01-01-2020 18:00\ngarbage\nT | 0 | book\n";
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), content);
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+
+        assertTrue(manager.readFile().isSuccess());
+        assertTrue(manager.findTasksByName("book").isSuccess());
+        manager.close();
+        assertEquals(content, Files.readString(save));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(save), files.toList());
+        }
+    }
+
+    @Test
+    public void saveFile_keepsOneVersionOfTaskChangedOnBothSides(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\nT | 0 | read book\n");
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            manager.loadFile();
+            Files.writeString(save, "T | 0 | new\nT | 0 | a\nT | 0 | read novel\n");
+            manager.markDone(2);
+
+            KattyResult conflict = manager.takeMergeConflict();
+            assertEquals(KattyError.SAVE_CONFLICT, conflict.getError());
+            assertTrue(conflict.getData().contains("read novel"));
+            assertEquals(Set.of("T | 0 | a", "T | 0 | new", "T | 1 | read book"), Set.copyOf(manager.snapshot()));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void saveFile_keepsSkippedLinesUntilFixed(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\ngarbage\n");
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            manager.loadFile();
+            manager.parser("todo", "b");
+            assertTrue(Files.readString(save).contains("garbage"));
+
+            Files.writeString(save, Files.readString(save).replace("garbage", "T | 0 | fixed"));
+            assertEquals("1 added, 0 removed", manager.reloadChanges().getData());
+            manager.parser("todo", "c");
+            assertFalse(Files.readString(save).contains("garbage"));
+            assertEquals(4, manager.size());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void syncLog_appliesOtherProcessChanges(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\n");
+        TaskManager first = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        TaskManager second = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            first.loadFile();
+            second.loadFile();
+            first.parser("todo", "b");
+            first.markDone(1);
+
+            assertEquals("1 added, 1 changed, 0 removed", second.syncLog().getData());
+            assertEquals(List.of("T | 1 | a", "T | 0 | b"), second.snapshot());
+            second.deleteTask(2);
+            assertEquals(List.of("T | 1 | a"), Files.readAllLines(save).subList(0, 1));
+            assertEquals(2, Files.readAllLines(save).size());
+            assertEquals("0 added, 0 changed, 1 removed", first.syncLog().getData());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void syncLog_showsTiedTasksInSameOrderEverywhere(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\n");
+        TaskManager first = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        TaskManager second = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            first.loadFile();
+            second.loadFile();
+            first.parser("todo", "c");
+            second.parser("todo", "b");
+            first.syncLog();
+
+            assertEquals(List.of("T | 0 | a", "T | 0 | b", "T | 0 | c"), first.snapshot());
+            assertEquals(first.snapshot(), second.snapshot());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void saveFile_keepsPermissions(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\n");
+        if (!Files.getFileStore(save).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(save, permissions);
+        TaskManager manager = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            manager.loadFile();
+            manager.parser("todo", "b");
+            assertEquals(2, manager.size());
+            assertEquals(permissions, Files.getPosixFilePermissions(save));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void syncLog_agreesWhenRemovedTaskWasChanged(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | read book\n");
+        TaskManager first = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        TaskManager second = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            first.loadFile();
+            second.loadFile();
+            first.deleteTask(1);
+            second.markDone(1);
+            first.syncLog();
+
+            assertEquals(List.of(), first.snapshot());
+            assertEquals(List.of(), second.snapshot());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void loadFile_foldsLogWhenAlone(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\n");
+        TaskManager first = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        TaskManager second = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        first.loadFile();
+        second.loadFile();
+        first.parser("todo", "b");
+        second.parser("todo", "c");
+        Path log = first.getLogPath();
+        first.close();
+        second.close();
+        long logged = Files.size(log);
+
+        TaskManager third = new TaskManager(save, dir.resolve("kattyArchive.gz"));
+        try {
+            third.loadFile();
+            Set<String> all = Set.of("T | 0 | a", "T | 0 | b", "T | 0 | c");
+            assertEquals(all, Set.copyOf(third.snapshot()));
+            assertTrue(Files.size(log) < logged);
+            assertEquals(all, Set.copyOf(Files.readAllLines(save).subList(0, 3)));
+        } finally {
+            third.close();
+        }
+    }
+}
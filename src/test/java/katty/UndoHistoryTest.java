@@ -0,0 +1,76 @@
+package katty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UndoHistoryTest {
+    @Test
+    public void invert_undoesInReverseOrder() {
+        List<String> records = List.of("+T | 0 | a", "-T | 0 | b", "=T | 1 | b", "-T | 0 | c");
+        assertEquals(List.of("+T | 0 | c", "-T | 1 | b", "=T | 0 | b", "-T | 0 | a"),
+                UndoHistory.invert(records));
+        assertEquals(records, UndoHistory.invert(UndoHistory.invert(records)));
+    }
+
+    @Test
+    public void invert_keepsTaskNumbersWithTheirRecords() {
+        List<String> records = List.of("@2", "-T | 0 | b", "+T | 0 | c", "@1", "-T | 0 | a");
+        assertEquals(List.of("@1", "+T | 0 | a", "-T | 0 | c", "@2", "+T | 0 | b"), UndoHistory.invert(records));
+        assertEquals(records, UndoHistory.invert(UndoHistory.invert(records)));
+    }
+
+    @Test
+    public void end_keepsOneChangePerCommand() {
+        UndoHistory history = new UndoHistory();
+        history.begin();
+        history.record("main", List.of("+T | 0 | a"));
+        history.record("main", List.of("+T | 0 | b"));
+        history.record("work", List.of("+T | 0 | c"));
+        history.end("batch todo a; todo b; move 3 work");
+        history.begin();
+        history.end("list");
+
+        UndoHistory.Change change = history.takeUndo();
+        assertEquals("batch todo a; todo b; move 3 work", change.command());
+        assertEquals(List.of(new UndoHistory.Step("main", List.of("+T | 0 | a", "+T | 0 | b")),
+                new UndoHistory.Step("work", List.of("+T | 0 | c"))), change.steps());
+        assertNull(history.takeUndo());
+
+        history.begin();
+        history.record("main", List.of("+T | 0 | d"));
+        history.end("todo d");
+        assertNull(history.takeRedo());
+    }
+
+    @Test
+    public void journal_keepsUndoAndRedoAcrossRuns(@TempDir Path dir) throws IOException {
+        Path journal = dir.resolve("kattyUndo.txt");
+        UndoHistory history = new UndoHistory(journal);
+        for (String name : List.of("a", "b", "c")) {
+            history.begin();
+            history.record("main", List.of("+T | 0 | " + name));
+            history.end("todo " + name);
+        }
+        history.takeUndo();
+        history.takeUndo();
+        history.takeRedo();
+
+        UndoHistory reopened = new UndoHistory(journal);
+        assertEquals(List.of("c todo a", "l main", "r +T | 0 | a", "c todo b", "l main", "r +T | 0 | b",
+                "c todo c", "l main", "r +T | 0 | c", "<"), Files.readAllLines(journal));
+        assertEquals("todo c", reopened.takeRedo().command());
+        assertNull(reopened.takeRedo());
+        assertEquals("todo c", reopened.takeUndo().command());
+        assertEquals("todo b", reopened.takeUndo().command());
+        assertEquals(List.of(new UndoHistory.Step("main", List.of("+T | 0 | a"))), reopened.takeUndo().steps());
+        assertNull(reopened.takeUndo());
+    }
+}
@@ -0,0 +1,48 @@
+package katty.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandRegistryTest {
+    private static final Command NO_OP = (args, out, format) -> true;
+
+    @Test
+    public void resolve_exactUniqueAndAmbiguous() {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("deadline", NO_OP);
+        registry.register("delete", NO_OP);
+        registry.register("list", NO_OP);
+        registry.register("listbyname", NO_OP);
+        registry.alias("rm", "delete");
+
+        assertEquals(List.of("list"), registry.resolve("list"));
+        assertEquals(List.of("delete"), registry.resolve("rm"));
+        assertEquals(List.of("delete"), registry.resolve("del"));
+        assertEquals(List.of("deadline", "delete"), registry.resolve("de"));
+        assertEquals(List.of(), registry.resolve("x"));
+    }
+
+    @Test
+    public void execute_recordsStats() {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("fail", (args, out, format) -> false);
+
+        registry.execute("fail", CommandArgs.tokenize("fa 1"), new StringBuilder(), null);
+        CommandStats stats = registry.getStats().get(0);
+        assertEquals(1L, stats.getInvocations());
+        assertEquals(1L, stats.getErrors());
+    }
+
+    @Test
+    public void tokenize_slices() {
+        CommandArgs args = CommandArgs.tokenize("DEADLINE  read book /by 01-01-2027 10:00");
+        assertEquals("deadline", args.getName());
+        assertEquals(" read book /by 01-01-2027 10:00", args.getRest());
+        assertEquals(5, args.size());
+        assertEquals("book", args.get(1));
+        assertEquals("/by 01-01-2027 10:00", args.getFrom(2));
+    }
+}
@@ -0,0 +1,84 @@
+package katty.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import katty.task.Deadline;
+import katty.task.Event;
+import katty.task.Task;
+import katty.task.ToDo;
+
+public class DateBucketIndexTest {
+    private static final LocalDate MONDAY = LocalDate.of(2030, 3, 4);
+
+    @Test
+    public void between_spansDaysAndSkipsCompleted() {
+        Task report = new Deadline("report", "04-03-2030 18:00");
+        Task camp = new Event("camp", "03-03-2030 09:00", "06-03-2030 17:00");
+        Task done = new Deadline("done", "04-03-2030 09:00");
+        done.markComplete();
+        DateBucketIndex index = new DateBucketIndex();
+        index.tasksReloaded(List.of(new ToDo("chores"), camp, done, report));
+
+        assertEquals(List.of(camp, report), index.between(MONDAY, MONDAY));
+        assertEquals(List.of(camp), index.between(MONDAY.plusDays(1), MONDAY.plusDays(6)));
+
+        camp.markComplete();
+        index.taskUpdated(camp);
+        assertEquals(List.of(), index.between(MONDAY.plusDays(1), MONDAY.plusDays(6)));
+    }
+
+    @Test
+    public void overdue_onlyBeforeNow() {
+        Task morning = new Deadline("morning", "04-03-2030 09:00");
+        Task evening = new Deadline("evening", "04-03-2030 21:00");
+        DateBucketIndex index = new DateBucketIndex();
+        index.taskAdded(morning);
+        index.taskAdded(evening);
+
+        assertEquals(List.of(morning), index.overdue(LocalDateTime.of(2030, 3, 4, 12, 0)));
+
+        index.taskRemoved(morning);
+        assertEquals(List.of(), index.overdue(LocalDateTime.of(2030, 3, 4, 12, 0)));
+        assertEquals(List.of(evening), index.between(MONDAY, MONDAY));
+    }
+
+    @Test
+    public void longEvent_matchesOverlappingDays() {
+        Task sabbatical = new Event("sabbatical", "01-01-2029 09:00", "31-12-2031 17:00");
+        DateBucketIndex index = new DateBucketIndex();
+        index.taskAdded(sabbatical);
+
+        assertEquals(List.of(sabbatical), index.between(MONDAY, MONDAY.plusDays(6)));
+        assertEquals(List.of(), index.between(LocalDate.of(2032, 1, 1), LocalDate.of(2032, 1, 7)));
+        assertEquals(List.of(), index.overdue(LocalDateTime.of(2030, 3, 4, 12, 0)));
+        assertEquals(List.of(sabbatical), index.overdue(LocalDateTime.of(2032, 1, 1, 12, 0)));
+
+        sabbatical.markComplete();
+        index.taskUpdated(sabbatical);
+        assertEquals(List.of(), index.overdue(LocalDateTime.of(2032, 1, 1, 12, 0)));
+        sabbatical.markIncomplete();
+        index.taskUpdated(sabbatical);
+        index.taskRemoved(sabbatical);
+        assertEquals(List.of(), index.between(MONDAY, MONDAY));
+        assertEquals(List.of(), index.overdue(LocalDateTime.of(2032, 1, 1, 12, 0)));
+    }
+
+    @Test
+    public void overdue_skipsEventsStillGoingOn() {
+        Task trip = new Event("trip", "03-03-2030 09:00", "05-03-2030 17:00");
+        Task call = new Deadline("call", "04-03-2030 09:00");
+        Task talk = new Event("talk", "04-03-2030 08:00", "04-03-2030 10:00");
+        DateBucketIndex index = new DateBucketIndex();
+        index.tasksReloaded(List.of(trip, call, talk));
+
+        assertEquals(List.of(call), index.overdue(LocalDateTime.of(2030, 3, 4, 9, 30)));
+        assertEquals(List.of(call, talk), index.overdue(LocalDateTime.of(2030, 3, 4, 12, 0)));
+        assertEquals(List.of(call, talk, trip), index.overdue(LocalDateTime.of(2030, 3, 6, 12, 0)));
+    }
+}
@@ -0,0 +1,65 @@
+package katty.index;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import katty.task.Deadline;
+import katty.task.Task;
+import katty.task.ToDo;
+
+public class DuplicateIndexTest {
+    @Test
+    public void contains_ignoresCaseSpacingAndStatus() {
+        Task milk = new ToDo("Buy  Milk");
+        milk.markComplete();
+        List<Task> tasks = new ArrayList<>(List.of(milk, new Deadline("report", "04-03-2030 18:00")));
+        DuplicateIndex index = new DuplicateIndex(() -> tasks);
+        index.tasksReloaded(tasks);
+
+        assertTrue(index.contains(new ToDo(" buy milk")));
+        assertTrue(index.contains(new Deadline("Report", "04-03-2030 18:00")));
+        assertFalse(index.contains(new Deadline("report", "05-03-2030 18:00")));
+        assertFalse(index.contains(new Deadline("buy milk", "04-03-2030 18:00")));
+    }
+
+    @Test
+    public void contains_followsAddsAndRemoves() {
+        List<Task> tasks = new ArrayList<>();
+        DuplicateIndex index = new DuplicateIndex(() -> tasks);
+        for (int i = 0; i < 100; i++) {
+            Task task = new ToDo("chore " + i);
+            tasks.add(task);
+            index.taskAdded(task);
+        }
+        Task again = new ToDo("chore 7");
+        tasks.add(again);
+        index.taskAdded(again);
+
+        assertTrue(index.contains(new ToDo("chore 99")));
+        index.taskRemoved(tasks.remove(7));
+        assertTrue(index.contains(new ToDo("chore 7")));
+        index.taskRemoved(tasks.remove(tasks.size() - 1));
+        assertFalse(index.contains(new ToDo("chore 7")));
+        assertTrue(index.contains(new ToDo("chore 8")));
+    }
+
+    @Test
+    public void contains_tellsCollidingTasksApart() {
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("read book")));
+        DuplicateIndex index = new DuplicateIndex(() -> tasks, text -> 42);
+
+        assertFalse(index.contains(new ToDo("write essay")));
+        assertTrue(index.contains(new ToDo("Read  Book")));
+        Task essay = new ToDo("write essay");
+        tasks.add(essay);
+        index.taskAdded(essay);
+        index.taskRemoved(tasks.remove(0));
+        assertTrue(index.contains(new ToDo("write essay")));
+        assertFalse(index.contains(new ToDo("read book")));
+    }
+}
@@ -0,0 +1,54 @@
+package katty.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import katty.task.Deadline;
+import katty.task.Task;
+import katty.task.ToDo;
+
+public class PrefixTrieTest {
+    @Test
+    public void complete_matchesAnyWordInOrder() {
+        Task book = new ToDo("Read  book");
+        Task library = new ToDo("return library book");
+        Task report = new Deadline("submit report", "01-03-2030 18:00");
+        PrefixTrie trie = new PrefixTrie();
+        trie.tasksReloaded(List.of(book, library, report));
+
+        assertEquals(List.of(book, library), trie.complete("BO", 5));
+        assertEquals(List.of(book, report, library), trie.complete("re", 5));
+        assertEquals(List.of(book), trie.complete("read ", 5));
+        assertEquals(List.of(book), trie.complete("re", 1));
+        assertEquals(List.of(), trie.complete("reading", 5));
+        assertEquals(List.of(), trie.complete(" ", 5));
+    }
+
+    @Test
+    public void complete_followsAddsAndRemoves() {
+        PrefixTrie trie = new PrefixTrie();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Task task = new ToDo("chore " + i);
+            tasks.add(task);
+            trie.taskAdded(task);
+        }
+        Task again = new ToDo("chore 7");
+        trie.taskAdded(again);
+
+        assertEquals(List.of(tasks.get(7), again), trie.complete("chore 7", 5));
+        assertEquals(11, trie.complete("chore 1", 20).size());
+        trie.taskRemoved(tasks.get(7));
+        trie.taskRemoved(tasks.get(1));
+        assertEquals(List.of(again), trie.complete("7", 5));
+        assertEquals(10, trie.complete("chore 1", 20).size());
+        for (Task task : tasks) {
+            trie.taskRemoved(task);
+        }
+        assertEquals(List.of(again), trie.complete("c", 5));
+    }
+}
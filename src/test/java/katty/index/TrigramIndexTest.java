@@ -0,0 +1,75 @@
+package katty.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import katty.task.Task;
+import katty.task.ToDo;
+
+public class TrigramIndexTest {
+    @Test
+    public void search_toleratesTypos() {
+        Task report = new ToDo("submit report");
+        Task book = new ToDo("return book");
+        TrigramIndex index = new TrigramIndex();
+        index.tasksReloaded(List.of(report, book, new ToDo("buy milk")));
+
+        assertEquals(report, index.search("reprot", 5).get(0).task());
+        assertEquals(book, index.search("boko", 5).get(0).task());
+        assertTrue(index.search("xyz", 5).isEmpty());
+    }
+
+    @Test
+    public void search_toleratesSwapsInShortWords() {
+        Task read = new ToDo("read");
+        Task book = new ToDo("return book");
+        TrigramIndex index = new TrigramIndex();
+        index.tasksReloaded(List.of(read, book, new ToDo("buy milk")));
+
+        assertEquals(read, index.search("raed", 5).get(0).task());
+        assertEquals(read, index.search("erad", 5).get(0).task());
+        assertEquals(book, index.search("obok", 5).get(0).task());
+        assertTrue(index.search("xyz", 5).isEmpty());
+    }
+
+    @Test
+    public void search_countsOnlyCandidatesOfEachQuery() {
+        TrigramIndex index = new TrigramIndex();
+        Task report = new ToDo("submit report");
+        index.taskAdded(report);
+        index.taskAdded(new ToDo("buy milk"));
+
+        assertEquals(report, index.search("report", 5).get(0).task());
+        assertEquals("buy milk", index.search("milk", 5).get(0).task().getTaskName());
+        List<TrigramIndex.Match> again = index.search("report", 5);
+        assertEquals(1, again.size());
+        assertEquals(1.0, again.get(0).score());
+    }
+
+    @Test
+    public void search_keepsBestK() {
+        TrigramIndex index = new TrigramIndex();
+        Task exact = new ToDo("read book");
+        index.taskAdded(new ToDo("read books"));
+        index.taskAdded(new ToDo("read bookshelf"));
+        index.taskAdded(exact);
+
+        List<TrigramIndex.Match> matches = index.search("read book", 2);
+        assertEquals(2, matches.size());
+        assertEquals(exact, matches.get(0).task());
+
+        index.taskRemoved(exact);
+        assertEquals(2, index.size());
+        assertEquals("read books", index.search("read book", 1).get(0).task().getTaskName());
+    }
+
+    @Test
+    public void editDistance_countsSwapsOnce() {
+        assertEquals(1, TrigramIndex.editDistance("reprot", "report"));
+        assertEquals(3, TrigramIndex.editDistance("kitten", "sitting"));
+    }
+}
@@ -0,0 +1,75 @@
+package katty.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BackupStoreTest {
+    @Test
+    public void encode_copiesRunsAndInsertsTheRest() {
+        List<String> base = List.of("a", "b", "c", "d", "e");
+        List<String> lines = List.of("a", "b", "x", "d", "e", "c");
+        List<String> ops = BackupStore.encode(base, lines);
+        assertEquals(List.of("=0 2", "+x", "=3 2", "=2 1"), ops);
+        assertEquals(lines, BackupStore.decode(base, ops));
+    }
+
+    @Test
+    public void restore_replaysBoundedChainOfChanges(@TempDir Path dir) throws Exception {
+        List<List<String>> expected = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add("T | 0 | chore " + i);
+        }
+        try (BackupStore store = new BackupStore(dir)) {
+            for (int v = 0; v < BackupStore.MAX_CHAIN + 2; v++) {
+                lines.set(v, "T | 1 | chore " + v);
+                expected.add(List.copyOf(lines));
+                store.backup(List.copyOf(lines));
+            }
+            BackupStore.Version last = store.backup(List.copyOf(lines)).get();
+
+            List<BackupStore.Version> versions = store.getVersions();
+            assertEquals(BackupStore.MAX_CHAIN + 3, versions.size());
+            assertEquals(0, versions.get(0).depth());
+            assertEquals(BackupStore.MAX_CHAIN - 1, versions.get(BackupStore.MAX_CHAIN - 1).depth());
+            assertEquals(0, versions.get(BackupStore.MAX_CHAIN).depth());
+            assertEquals(versions.get(versions.size() - 2).object(), last.object());
+            for (int v = 0; v < expected.size(); v++) {
+                assertEquals(expected.get(v), store.restore(v + 1));
+            }
+            assertNull(store.restore(99));
+        }
+
+        try (BackupStore reopened = new BackupStore(dir)) {
+            assertEquals(expected.get(3), reopened.restore(4));
+            assertEquals(BackupStore.MAX_CHAIN + 4, reopened.backup(List.of()).get().number());
+        }
+        try (Stream<Path> objects = Files.list(dir.resolve("objects"))) {
+            assertTrue(objects.count() <= BackupStore.MAX_CHAIN + 3);
+        }
+    }
+
+    @Test
+    public void close_waitsForBackupsBeingWritten(@TempDir Path dir) throws IOException {
+        BackupStore store = new BackupStore(dir);
+        store.backup(List.of("T | 0 | a"));
+        store.backup(List.of("T | 0 | a", "T | 0 | b"));
+        store.close();
+
+        assertEquals(List.of("T | 0 | a", "T | 0 | b"), store.restore(2));
+        assertThrows(IOException.class, () -> store.backup(List.of()));
+        assertEquals(2, new BackupStore(dir).getVersions().size());
+    }
+}
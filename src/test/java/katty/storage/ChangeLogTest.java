@@ -0,0 +1,53 @@
+package katty.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChangeLogTest {
+    @Test
+    public void readFrom_skipsOwnRecords(@TempDir Path dir) throws IOException {
+        Path save = dir.resolve("kattySave.txt");
+        try (ChangeLog first = new ChangeLog(save); ChangeLog second = new ChangeLog(save)) {
+            first.open();
+            second.open();
+            long start = first.getStart();
+
+            first.append(List.of("+T | 0 | a", "+T | 0 | b"));
+            second.append(List.of("-T | 0 | a"));
+
+            ChangeLog.Tail tail = first.readFrom(start);
+            assertEquals(List.of("-T | 0 | a"), tail.records());
+            assertEquals(first.getEnd(), tail.offset());
+            assertEquals(List.of("+T | 0 | a", "+T | 0 | b"), second.readFrom(start).records());
+        }
+    }
+
+    @Test
+    public void commit_refusedAfterOtherAppend(@TempDir Path dir) throws IOException {
+        Path save = dir.resolve("kattySave.txt");
+        try (ChangeLog first = new ChangeLog(save); ChangeLog second = new ChangeLog(save)) {
+            first.open();
+            second.open();
+            long end = first.append(List.of("+T | 0 | a"));
+            second.append(List.of("+T | 0 | b"));
+
+            Path stale = Files.writeString(dir.resolve("stale.tmp"), "T | 0 | a\n");
+            assertFalse(first.commit(stale, save, end));
+            assertFalse(Files.exists(stale));
+            assertFalse(Files.exists(save));
+
+            Path fresh = Files.writeString(dir.resolve("fresh.tmp"), "T | 0 | a\nT | 0 | b\n");
+            assertTrue(first.commit(fresh, save, first.readFrom(end).offset()));
+            assertEquals("T | 0 | a\nT | 0 | b\n", Files.readString(save));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package katty.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import katty.task.Task;
+import katty.task.ToDo;
+
+public class LazyTaskListTest {
+    @Test
+    public void load_readsOnDemandAndSortsByIndex(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "D | 0 | late | 02-03-2030 18:00\n"
+                + "garbage\n# katty-log 1 29 0\nT | 1 | chores\nD | 0 | early | 01-03-2030 18:00\n");
+        List<String> skipped = new ArrayList<>();
+        try (LazyTaskList tasks = LazyTaskList.load(save, new TaskCache(1 << 20), skipped::add)) {
+            assertEquals(List.of("garbage"), skipped);
+            assertEquals(3, tasks.size());
+            assertTrue(tasks.isComplete(1));
+
+            tasks.sortByDate();
+            assertEquals("chores", tasks.get(0).getTaskName());
+            assertEquals("early", tasks.get(1).getTaskName());
+            assertEquals("late", tasks.get(2).getTaskName());
+            assertSame(tasks.get(2), tasks.get(2));
+        }
+    }
+
+    @Test
+    public void save_keepsChangesAndCopiesTheRest(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\nT | 0 | b\nT | 0 | c\n");
+        TaskCache cache = new TaskCache(1);
+        try (LazyTaskList tasks = LazyTaskList.load(save, cache, line -> { })) {
+            Task b = tasks.get(1);
+            b.markComplete();
+            tasks.set(1, b);
+            tasks.remove(0);
+            tasks.add(new ToDo("d"));
+
+            tasks.save(Files.createTempFile(dir, "kattySave", ".tmp"), List.of());
+            assertEquals(String.join(System.lineSeparator(), "T | 1 | b", "T | 0 | c", "T | 0 | d", ""),
+                    Files.readString(save));
+            assertEquals("c", tasks.get(1).getTaskName());
+            assertTrue(tasks.get(0).isComplete());
+        }
+    }
+
+    @Test
+    public void save_doesNotGrowWindowsLineEndings(@TempDir Path dir) throws IOException {
+        Path save = Files.writeString(dir.resolve("kattySave.txt"), "T | 0 | a\r\nT | 0 | b\r\nT | 0 | c");
+        try (LazyTaskList tasks = LazyTaskList.load(save, new TaskCache(1 << 20), line -> { })) {
+            tasks.set(1, tasks.get(1));
+            tasks.save(Files.createTempFile(dir, "kattySave", ".tmp"), List.of());
+            tasks.save(Files.createTempFile(dir, "kattySave", ".tmp"), List.of());
+            assertEquals(String.join(System.lineSeparator(), "T | 0 | a", "T | 0 | b", "T | 0 | c", ""),
+                    Files.readString(save));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package katty.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import katty.KattyException;
+
+public class SortOrderTest {
+    @Test
+    public void sort_byStatusThenName() throws KattyException {
+        Task walk = new ToDo("walk");
+        Task apples = new ToDo("apples");
+        apples.markComplete();
+        Task report = new Deadline("Report", "01-03-2030 18:00");
+        Task bills = new Deadline("bills", "28-02-2030 18:00");
+        List<Task> tasks = new ArrayList<>(List.of(walk, apples, report, bills));
+
+        SortOrder order = SortOrder.parse("status, name");
+        order.sort(tasks);
+        assertEquals(List.of(bills, report, walk, apples), tasks);
+        assertEquals("status, name", order.toString());
+
+        SortOrder.parse("type date").sort(tasks);
+        assertEquals(List.of(apples, walk, bills, report), tasks);
+    }
+
+    @Test
+    public void parse_rejectsUnknownAndRepeatedFields() {
+        assertThrows(KattyException.class, () -> SortOrder.parse("cats"));
+        assertThrows(KattyException.class, () -> SortOrder.parse("date, date"));
+        assertThrows(KattyException.class, () -> SortOrder.parse(""));
+    }
+
+    @Test
+    public void sortedOrder_isStable() {
+        long[] keys = {5, 1L << 40, 5, 0, 300, 1L << 40};
+        assertEquals(List.of(3, 0, 2, 4, 1, 5),
+                Arrays.stream(SortOrder.sortedOrder(keys)).boxed().toList());
+    }
+
+    @Test
+    public void insertionPoint_agreesWithSort() throws KattyException {
+        SortOrder order = SortOrder.parse("status, name");
+        Task first = new ToDo("Bills");
+        Task last = new ToDo("walk");
+        last.markComplete();
+        List<Task> tasks = new ArrayList<>(List.of(first, new ToDo("apples"), last));
+        order.sort(tasks);
+
+        Task tie = new Deadline("bills", "01-03-2030 18:00");
+        assertTrue(order.compare(first, tie) < 0);
+        assertEquals(2, order.insertionPoint(tasks, tie, 0, tasks.size(), false));
+        Task copy = new ToDo("Bills");
+        assertEquals(0, order.compare(first, copy));
+        assertEquals(2, order.insertionPoint(tasks, copy, 0, tasks.size(), true));
+        assertEquals(1, order.insertionPoint(tasks, copy, 0, tasks.size(), false));
+
+        tasks.add(tie);
+        order.sort(tasks);
+        assertEquals(2, tasks.indexOf(tie));
+    }
+
+    @Test
+    public void sort_ordersTiesTheSameWhateverTheirOrderBefore() {
+        Task done = new ToDo("read");
+        done.markComplete();
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("write"), done, new ToDo("Write"), new ToDo("read")));
+        List<Task> reversed = new ArrayList<>(tasks);
+        Collections.reverse(reversed);
+        SortOrder.BY_DATE.sort(tasks);
+        SortOrder.BY_DATE.sort(reversed);
+
+        assertEquals(List.of("T | 0 | Write", "T | 0 | read", "T | 1 | read", "T | 0 | write"),
+                tasks.stream().map(Task::toFileString).toList());
+        assertEquals(tasks, reversed);
+    }
+}